@@ -0,0 +1,83 @@
+package benchmarks;
+
+import imagen.Imagen;
+import imagen.Utilidades;
+
+import java.io.IOException;
+import java.lang.invoke.MethodHandle;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.MethodType;
+import java.nio.file.Files;
+import java.nio.file.Path;
+
+/**
+ * metodos auxiliares de las pruebas: lectura de las imagenes de
+ * la carpeta de datos y acceso a los metodos privados que se
+ * comparan. La carpeta es ../data, relativa al directorio del
+ * modulo, salvo que se indique otra con la propiedad datos
+ * (opcion -jvmArgsAppend -Ddatos=ruta de JMH)
+ */
+final class Datos {
+   /**
+    * carpeta con las imagenes
+    */
+   private static final Path CARPETA = Path.of(System.getProperty("datos",
+           "../data"));
+
+   /**
+    * constructor privado: la clase solo tiene metodos estaticos
+    */
+   private Datos() {
+   }
+
+   /**
+    * carga una imagen de la carpeta de datos
+    *
+    * @param nombre nombre del archivo
+    * @return imagen cargada
+    * @throws IllegalArgumentException si la imagen no puede cargarse
+    */
+   static Imagen cargar(String nombre) {
+      Imagen imagen = Utilidades.cargarImagen(CARPETA.resolve(nombre).toString());
+      if (imagen == null) {
+         throw new IllegalArgumentException("imagen no valida: " + nombre);
+      }
+      return imagen;
+   }
+
+   /**
+    * lee el contenido de un archivo de la carpeta de datos
+    *
+    * @param nombre nombre del archivo
+    * @return bytes del archivo
+    * @throws IOException si falla la lectura
+    */
+   static byte[] leer(String nombre) throws IOException {
+      return Files.readAllBytes(CARPETA.resolve(nombre));
+   }
+
+   /**
+    * obtiene un manejador para un metodo privado. Las pruebas
+    * comparan metodos que no forman parte de la interfaz de sus
+    * clases; el manejador se guarda en una constante, por lo que
+    * la llamada no tiene el coste de la reflexion
+    *
+    * @param clase    clase del metodo
+    * @param nombre   nombre del metodo
+    * @param tipo     tipo del metodo
+    * @param estatico true si el metodo es estatico
+    * @return manejador del metodo
+    * @throws IllegalStateException si el metodo no existe
+    */
+   static MethodHandle buscar(Class<?> clase, String nombre, MethodType tipo,
+                              boolean estatico) {
+      try {
+         MethodHandles.Lookup privado = MethodHandles.privateLookupIn(clase,
+                 MethodHandles.lookup());
+         return estatico ? privado.findStatic(clase, nombre, tipo) :
+                 privado.findVirtual(clase, nombre, tipo);
+      } catch (ReflectiveOperationException e) {
+         throw new IllegalStateException("metodo no disponible: " + nombre, e);
+      }
+   }
+}
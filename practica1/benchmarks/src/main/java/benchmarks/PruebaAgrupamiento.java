@@ -0,0 +1,79 @@
+package benchmarks;
+
+import convergencia.ModoConvergencia;
+import imagen.Imagen;
+import inicializacion.ModoInicializacion;
+import kmedias.KMedias;
+import kmedias.OpcionesKMedias;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * ejecucion completa del algoritmo: creacion del objeto (con la
+ * conversion de la imagen), agrupamiento y filtrado. Se hace un
+ * numero fijo de iteraciones, de forma que todas las
+ * configuraciones realizan el mismo trabajo
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 2, time = 5)
+@Measurement(iterations = 5, time = 5)
+@Fork(value = 1, jvmArgsAppend = "--add-modules=jdk.incubator.vector")
+public class PruebaAgrupamiento {
+   /**
+    * numero de iteraciones de cada ejecucion
+    */
+   private static final int ITERACIONES = 10;
+
+   /**
+    * imagen a filtrar
+    */
+   @Param({"lenna.png", "paisaje2.png", "mandril.png"})
+   private String imagen;
+
+   /**
+    * numero de colores
+    */
+   @Param({"4", "16", "64"})
+   private int k;
+
+   /**
+    * numero de hilos
+    */
+   @Param({"1", "2", "4"})
+   private int hilos;
+
+   /**
+    * imagen cargada
+    */
+   private Imagen original;
+
+   /**
+    * opciones de ejecucion
+    */
+   private OpcionesKMedias opciones;
+
+   /**
+    * carga la imagen y prepara las opciones
+    */
+   @Setup
+   public void preparar() {
+      original = Datos.cargar(imagen);
+      opciones = new OpcionesKMedias();
+      opciones.asignarHilos(hilos);
+   }
+
+   /**
+    * ejecucion completa
+    *
+    * @return imagen filtrada
+    */
+   @Benchmark
+   public Imagen agrupar() {
+      return KMedias.factoria(k, ModoInicializacion.MUESTREO_ALEATORIO,
+              ModoConvergencia.ITERACIONES, ITERACIONES, 0, original, opciones)
+              .agrupar();
+   }
+}
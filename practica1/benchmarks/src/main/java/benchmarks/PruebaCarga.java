@@ -0,0 +1,113 @@
+package benchmarks;
+
+import imagen.Imagen;
+import imagen.Utilidades;
+import org.openjdk.jmh.annotations.*;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.lang.invoke.MethodHandle;
+import java.lang.invoke.MethodType;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * carga de una imagen: versiones FUNCIONAL, imperativa y por
+ * raster (la usada por Utilidades.cargarImagen). El archivo se
+ * lee antes en memoria, de forma que se mide la decodificacion
+ * y la construccion de la imagen y no el acceso al disco
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(value = 1, jvmArgsAppend = "--add-modules=jdk.incubator.vector")
+public class PruebaCarga {
+   /**
+    * tipo de los metodos de carga
+    */
+   private static final MethodType TIPO = MethodType.methodType(Imagen.class,
+           InputStream.class);
+
+   /**
+    * carga FUNCIONAL
+    */
+   private static final MethodHandle CARGAR = Datos.buscar(Utilidades.class,
+           "cargarImagen", TIPO, true);
+
+   /**
+    * carga imperativa
+    */
+   private static final MethodHandle CARGAR_IMPERATIVA = Datos.buscar(
+           Utilidades.class, "cargarImagenImperativa", TIPO, true);
+
+   /**
+    * carga por raster
+    */
+   private static final MethodHandle CARGAR_RASTER = Datos.buscar(
+           Utilidades.class, "cargarImagenRaster", TIPO, true);
+
+   /**
+    * imagen a cargar
+    */
+   @Param({"lenna.png", "paisaje2.png", "mandril.png"})
+   private String imagen;
+
+   /**
+    * contenido del archivo
+    */
+   private byte[] contenido;
+
+   /**
+    * lee el archivo
+    *
+    * @throws IOException si falla la lectura
+    */
+   @Setup
+   public void preparar() throws IOException {
+      contenido = Datos.leer(imagen);
+   }
+
+   /**
+    * carga FUNCIONAL
+    *
+    * @return imagen cargada
+    * @throws Throwable si falla la llamada
+    */
+   @Benchmark
+   public Imagen funcional() throws Throwable {
+      return (Imagen) CARGAR.invokeExact(flujo());
+   }
+
+   /**
+    * carga imperativa
+    *
+    * @return imagen cargada
+    * @throws Throwable si falla la llamada
+    */
+   @Benchmark
+   public Imagen imperativa() throws Throwable {
+      return (Imagen) CARGAR_IMPERATIVA.invokeExact(flujo());
+   }
+
+   /**
+    * carga por raster
+    *
+    * @return imagen cargada
+    * @throws Throwable si falla la llamada
+    */
+   @Benchmark
+   public Imagen raster() throws Throwable {
+      return (Imagen) CARGAR_RASTER.invokeExact(flujo());
+   }
+
+   /**
+    * crea un flujo sobre el contenido del archivo
+    *
+    * @return flujo de lectura
+    */
+   private InputStream flujo() {
+      return new ByteArrayInputStream(contenido);
+   }
+}
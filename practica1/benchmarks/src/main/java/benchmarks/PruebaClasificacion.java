@@ -0,0 +1,105 @@
+package benchmarks;
+
+import convergencia.ModoConvergencia;
+import inicializacion.ModoInicializacion;
+import kmedias.KMedias;
+import org.openjdk.jmh.annotations.*;
+
+import java.lang.invoke.MethodHandle;
+import java.lang.invoke.MethodType;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * asignacion de todos los pixels de una imagen a su centro mas
+ * cercano: versiones FUNCIONAL e imperativa de KMedias.clasificar,
+ * ambas pixel a pixel, y version por bloques con el nucleo de
+ * distancias (la usada por el algoritmo). Los centros se obtienen
+ * con una ejecucion previa de una iteracion
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(value = 1, jvmArgsAppend = "--add-modules=jdk.incubator.vector")
+public class PruebaClasificacion {
+   /**
+    * tipo de los metodos de clasificacion
+    */
+   private static final MethodType TIPO = MethodType.methodType(void.class);
+
+   /**
+    * clasificacion FUNCIONAL
+    */
+   private static final MethodHandle CLASIFICAR = Datos.buscar(KMedias.class,
+           "clasificar", TIPO, false);
+
+   /**
+    * clasificacion imperativa
+    */
+   private static final MethodHandle CLASIFICAR_IMPERATIVO = Datos.buscar(
+           KMedias.class, "clasificarImperativo", TIPO, false);
+
+   /**
+    * clasificacion con el nucleo de distancias
+    */
+   private static final MethodHandle CLASIFICAR_BLOQUES = Datos.buscar(
+           KMedias.class, "clasificarBloques", TIPO, false);
+
+   /**
+    * imagen a clasificar
+    */
+   @Param({"lenna.png", "paisaje2.png", "mandril.png"})
+   private String imagen;
+
+   /**
+    * numero de centros
+    */
+   @Param({"4", "16", "64"})
+   private int k;
+
+   /**
+    * objeto con los centros y el array de asignaciones
+    */
+   private KMedias kmedias;
+
+   /**
+    * crea el objeto y obtiene los centros
+    */
+   @Setup
+   public void preparar() {
+      kmedias = KMedias.factoria(k, ModoInicializacion.MUESTREO_ALEATORIO,
+              ModoConvergencia.ITERACIONES, 1, 0, Datos.cargar(imagen));
+      kmedias.agrupar();
+   }
+
+   /**
+    * clasificacion FUNCIONAL
+    *
+    * @throws Throwable si falla la llamada
+    */
+   @Benchmark
+   public void funcional() throws Throwable {
+      CLASIFICAR.invokeExact(kmedias);
+   }
+
+   /**
+    * clasificacion imperativa
+    *
+    * @throws Throwable si falla la llamada
+    */
+   @Benchmark
+   public void imperativa() throws Throwable {
+      CLASIFICAR_IMPERATIVO.invokeExact(kmedias);
+   }
+
+   /**
+    * clasificacion por bloques
+    *
+    * @throws Throwable si falla la llamada
+    */
+   @Benchmark
+   public void bloques() throws Throwable {
+      CLASIFICAR_BLOQUES.invokeExact(kmedias);
+   }
+}
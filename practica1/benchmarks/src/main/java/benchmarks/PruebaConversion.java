@@ -0,0 +1,59 @@
+package benchmarks;
+
+import imagen.Imagen;
+import imagen.Pixel;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * conversion de los colores de la imagen a objetos Pixel:
+ * versiones FUNCIONAL e imperativa
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(value = 1, jvmArgsAppend = "--add-modules=jdk.incubator.vector")
+public class PruebaConversion {
+   /**
+    * imagen a convertir
+    */
+   @Param({"lenna.png", "paisaje2.png", "mandril.png"})
+   private String imagen;
+
+   /**
+    * imagen cargada
+    */
+   private Imagen original;
+
+   /**
+    * carga la imagen
+    */
+   @Setup
+   public void preparar() {
+      original = Datos.cargar(imagen);
+   }
+
+   /**
+    * conversion FUNCIONAL
+    *
+    * @return lista de pixels
+    */
+   @Benchmark
+   public List<Pixel> funcional() {
+      return original.convertirIndicesColoresPixels();
+   }
+
+   /**
+    * conversion imperativa
+    *
+    * @return lista de pixels
+    */
+   @Benchmark
+   public List<Pixel> imperativa() {
+      return original.convertirIndicesColoresPixelsImperativo();
+   }
+}
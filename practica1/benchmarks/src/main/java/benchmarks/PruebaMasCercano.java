@@ -0,0 +1,98 @@
+package benchmarks;
+
+import imagen.Pixel;
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.SplittableRandom;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * busqueda del centro mas cercano a un pixel: versiones
+ * FUNCIONAL e imperativa de Pixel.obtenerMasCercano. Se usa una
+ * muestra de pixels repartida por la imagen y k centros elegidos
+ * al azar con semilla fija; el rendimiento se da por pixel
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(value = 1, jvmArgsAppend = "--add-modules=jdk.incubator.vector")
+@OperationsPerInvocation(PruebaMasCercano.MUESTRA)
+public class PruebaMasCercano {
+   /**
+    * numero de pixels de la muestra
+    */
+   static final int MUESTRA = 10000;
+
+   /**
+    * imagen de la que se obtienen los pixels
+    */
+   @Param({"lenna.png", "paisaje2.png", "mandril.png"})
+   private String imagen;
+
+   /**
+    * numero de centros
+    */
+   @Param({"4", "16", "64"})
+   private int k;
+
+   /**
+    * pixels de la muestra
+    */
+   private List<Pixel> muestra;
+
+   /**
+    * centros entre los que se busca
+    */
+   private List<Pixel> centros;
+
+   /**
+    * obtiene la muestra y los centros
+    */
+   @Setup
+   public void preparar() {
+      List<Pixel> pixels = Datos.cargar(imagen)
+              .convertirIndicesColoresPixelsImperativo();
+
+      // muestra a intervalos regulares
+      muestra = new ArrayList<>(MUESTRA);
+      for (int i = 0; i < MUESTRA; i++) {
+         muestra.add(pixels.get((int) ((long) i * pixels.size() / MUESTRA)));
+      }
+
+      // centros al azar, siempre los mismos
+      SplittableRandom generador = new SplittableRandom(1);
+      centros = new ArrayList<>(k);
+      for (int i = 0; i < k; i++) {
+         centros.add(pixels.get(generador.nextInt(pixels.size())));
+      }
+   }
+
+   /**
+    * busqueda FUNCIONAL
+    *
+    * @param sumidero destino de los resultados
+    */
+   @Benchmark
+   public void funcional(Blackhole sumidero) {
+      for (Pixel pixel : muestra) {
+         sumidero.consume(pixel.obtenerMasCercano(centros));
+      }
+   }
+
+   /**
+    * busqueda imperativa
+    *
+    * @param sumidero destino de los resultados
+    */
+   @Benchmark
+   public void imperativa(Blackhole sumidero) {
+      for (Pixel pixel : muestra) {
+         sumidero.consume(pixel.obtenerMasCercanoImperativo(centros));
+      }
+   }
+}
@@ -0,0 +1,59 @@
+package benchmarks;
+
+import imagen.Pixel;
+import imagen.Utilidades;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * calculo de la media de todos los pixels de una imagen:
+ * versiones FUNCIONAL e imperativa
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(value = 1, jvmArgsAppend = "--add-modules=jdk.incubator.vector")
+public class PruebaMedia {
+   /**
+    * imagen de la que se obtienen los pixels
+    */
+   @Param({"lenna.png", "paisaje2.png", "mandril.png"})
+   private String imagen;
+
+   /**
+    * pixels de la imagen
+    */
+   private List<Pixel> pixels;
+
+   /**
+    * obtiene los pixels de la imagen
+    */
+   @Setup
+   public void preparar() {
+      pixels = Datos.cargar(imagen).convertirIndicesColoresPixelsImperativo();
+   }
+
+   /**
+    * media FUNCIONAL
+    *
+    * @return pixel medio
+    */
+   @Benchmark
+   public Pixel funcional() {
+      return Utilidades.calcularMedia(pixels);
+   }
+
+   /**
+    * media imperativa
+    *
+    * @return pixel medio
+    */
+   @Benchmark
+   public Pixel imperativa() {
+      return Utilidades.calcularMediaImperativo(pixels);
+   }
+}
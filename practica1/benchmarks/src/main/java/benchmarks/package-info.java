@@ -0,0 +1,17 @@
+/**
+ * pruebas de rendimiento con JMH. Comparan las versiones FUNCIONAL
+ * e imperativa de los metodos que mantiene el codigo y miden una
+ * ejecucion completa del algoritmo, con las imagenes de la carpeta
+ * data. Todas dan el rendimiento en operaciones por segundo; con la
+ * opcion -prof gc se obtiene ademas la tasa de reserva de memoria.
+ * Contiene:
+ * a) Datos: lectura de las imagenes y acceso a los metodos privados
+ * b) PruebaCarga: carga de imagenes desde un flujo
+ * c) PruebaConversion: conversion de los colores a objetos Pixel
+ * d) PruebaMedia: calculo de la media de una lista de pixels
+ * e) PruebaMasCercano: busqueda del centro mas cercano a un pixel
+ * f) PruebaClasificacion: asignacion de los pixels a sus centros
+ * g) PruebaAgrupamiento: ejecucion completa de KMedias.agrupar
+ * para varios valores de k y numeros de hilos
+ */
+package benchmarks;
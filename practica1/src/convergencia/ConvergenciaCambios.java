@@ -0,0 +1,119 @@
+package convergencia;
+
+import kmedias.EstadisticasIteracion;
+import kmedias.KMedias;
+
+import java.util.stream.LongStream;
+
+/**
+ * clase para determinar la condicion de parada por la fraccion de
+ * pixels que han cambiado de grupo en la ultima iteracion: hay
+ * convergencia si no supera el umbral o si deja de disminuir de
+ * una iteracion a la siguiente. El numero de cambios lo anota la
+ * estrategia de iteracion al asignar los pixels, por lo que no
+ * requiere ningun recorrido adicional. Con las estrategias que no
+ * lo anotan (iteracion clasica o por mini-lotes) solo se
+ * considera el limite de iteraciones
+ */
+public class ConvergenciaCambios extends EstrategiaConvergencia {
+   /**
+    * maxima fraccion de pixels que pueden cambiar de grupo
+    */
+   private final double umbral;
+
+   /**
+    * maximo numero de iteraciones
+    */
+   private final int maxIteraciones;
+
+   /**
+    * fraccion de cambios de la iteracion anterior
+    */
+   private double anterior;
+
+   /**
+    * constructor de la clase
+    *
+    * @param umbral         fraccion de pixels (entre 0 y 1) por
+    *                       debajo de la cual hay convergencia
+    * @param maxIteraciones numero maximo de iteraciones a
+    *                       ejecutar
+    */
+   public ConvergenciaCambios(double umbral, int maxIteraciones) {
+      this.umbral = umbral;
+      this.maxIteraciones = maxIteraciones;
+      anterior = Double.POSITIVE_INFINITY;
+      medida = 1;
+   }
+
+   /**
+    * metodo de deteccion de convergencia por la fraccion de
+    * pixels que cambian de grupo
+    * FUNCIONAL
+    *
+    * @param kmedias objeto analizado
+    * @return flag booleano indicando si hay convergencia
+    */
+   @Override
+   public boolean convergencia(KMedias kmedias) {
+      boolean convergencia = false;
+
+      // se obtienen los cambios anotados en la iteracion
+      EstadisticasIteracion estadisticas = kmedias.obtenerEstadisticas();
+      if(estadisticas != null && estadisticas.esCompleta()){
+         long total = LongStream.range(0, estadisticas.obtenerNumeroGrupos())
+                 .map(grupo -> estadisticas.obtenerPeso((int) grupo))
+                 .sum();
+         medida = estadisticas.obtenerCambios() / (double) total;
+
+         // se determina si los cambios son pocos o han dejado
+         // de disminuir
+         convergencia = medida <= umbral || medida >= anterior;
+         anterior = medida;
+      }
+
+      // se considera tambien el limite de iteraciones
+      if(kmedias.obtenerContadorIteraciones() >= maxIteraciones){
+         convergencia = true;
+      }
+
+      // se devuelve el resultado
+      return convergencia;
+   }
+
+   /**
+    * metodo de deteccion de convergencia por la fraccion de
+    * pixels que cambian de grupo de forma imperativa
+    *
+    * @param kmedias objeto analizado
+    * @return flag booleano indicando si hay convergencia
+    */
+   public boolean convergenciaImperativo(KMedias kmedias) {
+      boolean convergencia = false;
+
+      // se obtienen los cambios anotados en la iteracion
+      EstadisticasIteracion estadisticas = kmedias.obtenerEstadisticas();
+      if(estadisticas != null && estadisticas.esCompleta()){
+         long total = 0;
+         for(int grupo=0; grupo < estadisticas.obtenerNumeroGrupos(); grupo++){
+            total += estadisticas.obtenerPeso(grupo);
+         }
+         medida = estadisticas.obtenerCambios() / (double) total;
+
+         // se determina si los cambios son pocos o han dejado
+         // de disminuir
+         if(medida <= umbral || medida >= anterior){
+            convergencia = true;
+         }
+         anterior = medida;
+      }
+
+      // se considera tambien el limite de iteraciones
+      if(kmedias.obtenerContadorIteraciones() >= maxIteraciones){
+         convergencia = true;
+      }
+
+      // se devuelve el resultado
+      return convergencia;
+   }
+}
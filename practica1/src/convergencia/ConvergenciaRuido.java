@@ -1,13 +1,24 @@
 package convergencia;
 
+import imagen.AlmacenPixels;
+import imagen.ComponentesRGBA;
+import imagen.Utilidades;
+import kmedias.EstadisticasIteracion;
 import kmedias.KMedias;
-import imagen.Pixel;
 
-import java.util.List;
+import java.util.stream.IntStream;
 
 /**
  * clase para representar deteccion de parada por
- * alcanzar determinado nivel de ruido
+ * alcanzar determinado nivel de ruido. La sennal de la imagen se
+ * calcula una sola vez. Si la estrategia de iteracion anota la
+ * distancia de cada pixel a su centro, el ruido se obtiene sumando
+ * el de cada grupo, sin recorrer la imagen: es el ruido de los
+ * centros con los que se han asignado los pixels en la iteracion,
+ * es decir, los obtenidos en la iteracion anterior. En otro caso
+ * (iteracion clasica o por mini-lotes) se asigna cada pixel a su
+ * centro final mas cercano y se calcula el ruido de los centros
+ * finales
  */
 public class ConvergenciaRuido extends EstrategiaConvergencia {
    /**
@@ -45,19 +56,22 @@ public class ConvergenciaRuido extends EstrategiaConvergencia {
    public boolean convergencia(KMedias kmedias) {
       boolean convergencia = false;
 
-      //calcular sennal
-      double sennal = kmedias.obtenerPixels().stream().mapToDouble(
-              pixel -> pixel.calcularSennal())
-              .sum();
-
-      //calcular ruido
-      double ruido = kmedias.obtenerPixels().stream().mapToDouble(
-              pixel -> pixel.calcularRuido(
-                         pixel.obtenerMasCercano(
-                              kmedias.obtenerCentrosT2()
-                      ))
-      ).sum();
-
+      // la sennal no depende de los centros y se calcula una
+      // sola vez
+      double sennal = kmedias.obtenerSennal();
+
+      // el ruido se obtiene de las estadisticas de los grupos o,
+      // si no las hay, recorriendo la imagen
+      EstadisticasIteracion estadisticas = kmedias.obtenerEstadisticas();
+      double ruido;
+      if(estadisticas != null && estadisticas.esCompleta()){
+         ruido = IntStream.range(0, estadisticas.obtenerNumeroGrupos())
+                 .mapToDouble(estadisticas::obtenerRuido)
+                 .sum();
+      }
+      else{
+         ruido = calcularRuido(kmedias);
+      }
 
       // se obtiene la medida
       medida = sennal / ruido;
@@ -81,26 +95,22 @@ public class ConvergenciaRuido extends EstrategiaConvergencia {
     */
    public boolean convergenciaImperativo(KMedias kmedias) {
       boolean convergencia = false;
-      double sennal = 0;
       double ruido = 0;
 
-      // se obtienen los pixels de la imagen
-      List<Pixel> pixels = kmedias.obtenerPixels();
-
-      // bucle de recorrido de los pixels de la imagen
-      for(int i=0; i < pixels.size(); i++){
-         // obtengo el pixel con indice i
-         Pixel pixel = pixels.get(i);
-
-         // obtener el centro final mas cercano
-         Pixel centroMasCercano =
-                 pixel.obtenerMasCercano(kmedias.obtenerCentrosT2());
-
-         // se obtien el valor de sennal asociado al pixel
-         sennal += pixel.calcularSennal();
-
-         // se calcula el valor de ruido
-         ruido += pixel.calcularRuido(centroMasCercano);
+      // la sennal no depende de los centros y se calcula una
+      // sola vez
+      double sennal = kmedias.obtenerSennal();
+
+      // el ruido se obtiene de las estadisticas de los grupos o,
+      // si no las hay, recorriendo la imagen
+      EstadisticasIteracion estadisticas = kmedias.obtenerEstadisticas();
+      if(estadisticas != null && estadisticas.esCompleta()){
+         for(int grupo=0; grupo < estadisticas.obtenerNumeroGrupos(); grupo++){
+            ruido += estadisticas.obtenerRuido(grupo);
+         }
+      }
+      else{
+         ruido = calcularRuidoImperativo(kmedias);
       }
 
       // se obtiene la medida
@@ -115,4 +125,76 @@ public class ConvergenciaRuido extends EstrategiaConvergencia {
       // se devuelve el resultado
       return convergencia;
    }
+
+   /**
+    * calcula el ruido de los centros finales recorriendo la
+    * imagen, para las estrategias de iteracion que no anotan la
+    * distancia de cada pixel a su centro
+    * FUNCIONAL
+    *
+    * @param kmedias objeto analizado
+    * @return ruido de los centros finales
+    */
+   private double calcularRuido(KMedias kmedias) {
+      // se obtienen los pixels de la imagen y las componentes
+      // de los centros finales
+      AlmacenPixels almacen = kmedias.obtenerAlmacen();
+      double[] rojos = Utilidades.obtenerComponentes(
+              kmedias.obtenerCentrosT2(), ComponentesRGBA.ROJO);
+      double[] verdes = Utilidades.obtenerComponentes(
+              kmedias.obtenerCentrosT2(), ComponentesRGBA.VERDE);
+      double[] azules = Utilidades.obtenerComponentes(
+              kmedias.obtenerCentrosT2(), ComponentesRGBA.AZUL);
+
+      // el centro final mas cercano a todos los pixels se
+      // obtiene de una vez con el nucleo de distancias
+      int[] centros = new int[almacen.obtenerNumeroPixels()];
+      almacen.obtenerMasCercanos(0, centros.length, rojos, verdes, azules,
+              centros);
+
+      // calcular ruido, ponderando cada entrada del almacen por
+      // el numero de pixels que representa
+      return IntStream.range(0, almacen.obtenerNumeroPixels())
+              .mapToDouble(i -> almacen.obtenerPeso(i) * almacen.calcularRuido(i,
+                      rojos[centros[i]], verdes[centros[i]], azules[centros[i]]))
+              .sum();
+   }
+
+   /**
+    * calcula el ruido de los centros finales recorriendo la
+    * imagen, para las estrategias de iteracion que no anotan la
+    * distancia de cada pixel a su centro, de forma imperativa
+    *
+    * @param kmedias objeto analizado
+    * @return ruido de los centros finales
+    */
+   private double calcularRuidoImperativo(KMedias kmedias) {
+      double ruido = 0;
+
+      // se obtienen los pixels de la imagen y las componentes
+      // de los centros finales
+      AlmacenPixels almacen = kmedias.obtenerAlmacen();
+      double[] rojos = Utilidades.obtenerComponentes(
+              kmedias.obtenerCentrosT2(), ComponentesRGBA.ROJO);
+      double[] verdes = Utilidades.obtenerComponentes(
+              kmedias.obtenerCentrosT2(), ComponentesRGBA.VERDE);
+      double[] azules = Utilidades.obtenerComponentes(
+              kmedias.obtenerCentrosT2(), ComponentesRGBA.AZUL);
+
+      // se obtiene el centro final mas cercano a cada pixel
+      int[] centros = new int[almacen.obtenerNumeroPixels()];
+      almacen.obtenerMasCercanos(0, centros.length, rojos, verdes, azules,
+              centros);
+
+      // bucle de recorrido de los pixels de la imagen
+      for(int i=0; i < almacen.obtenerNumeroPixels(); i++){
+         int centro = centros[i];
+
+         // se calcula el valor de ruido, ponderado por el
+         // numero de pixels que representa
+         ruido += almacen.obtenerPeso(i) * almacen.calcularRuido(i,
+                 rojos[centro], verdes[centro], azules[centro]);
+      }
+      return ruido;
+   }
 }
@@ -0,0 +1,136 @@
+package convergencia;
+
+import imagen.Pixel;
+import kmedias.EstadisticasIteracion;
+import kmedias.KMedias;
+
+import java.util.List;
+
+/**
+ * clase para detener el algoritmo antes de exceder un tiempo
+ * maximo de ejecucion, contado desde el comienzo de la
+ * inicializacion: hay convergencia si la siguiente iteracion,
+ * segun la duracion estimada a partir de las anteriores, acabaria
+ * despues del limite. La medida es la inercia alcanzada, que se
+ * obtiene de las estadisticas de la iteracion sin recorrer los
+ * pixels (NaN con las estrategias que no anotan la distancia de
+ * cada pixel a su centro). Se conservan los centros de menor
+ * inercia, que seran el resultado del algoritmo
+ */
+public class ConvergenciaTiempo extends EstrategiaConvergencia {
+   /**
+    * peso de la ultima iteracion en la estimacion de la duracion
+    * de la siguiente
+    */
+   private static final double PESO_ULTIMA = 0.5;
+
+   /**
+    * tiempo maximo de ejecucion, en nanosegundos
+    */
+   private final long limite;
+
+   /**
+    * maximo numero de iteraciones
+    */
+   private final int maxIteraciones;
+
+   /**
+    * instante en que acabo la iteracion anterior, en
+    * nanosegundos
+    */
+   private long ultimo;
+
+   /**
+    * indica si aun no se ha completado ninguna iteracion
+    */
+   private boolean primera;
+
+   /**
+    * duracion estimada de una iteracion, en nanosegundos
+    */
+   private double estimacion;
+
+   /**
+    * centros de menor inercia encontrados
+    */
+   private List<Pixel> mejores;
+
+   /**
+    * constructor de la clase
+    *
+    * @param milisegundos   tiempo maximo de ejecucion en
+    *                       milisegundos
+    * @param maxIteraciones numero maximo de iteraciones a
+    *                       ejecutar
+    */
+   public ConvergenciaTiempo(double milisegundos, int maxIteraciones) {
+      this.limite = (long) (milisegundos * 1e6);
+      this.maxIteraciones = maxIteraciones;
+      ultimo = 0;
+      primera = true;
+      estimacion = 0;
+      mejores = null;
+      medida = Double.NaN;
+   }
+
+   /**
+    * metodo de deteccion de convergencia por tiempo de
+    * ejecucion
+    *
+    * @param kmedias objeto analizado
+    * @return flag booleano indicando si hay convergencia
+    */
+   @Override
+   public boolean convergencia(KMedias kmedias) {
+      boolean convergencia = false;
+      long ahora = System.nanoTime();
+
+      // se actualiza la estimacion con la duracion de esta
+      // iteracion; la primera incluye la inicializacion
+      if(primera){
+         estimacion = ahora - kmedias.obtenerInicio();
+         primera = false;
+      }
+      else{
+         estimacion = PESO_ULTIMA * (ahora - ultimo) +
+                 (1 - PESO_ULTIMA) * estimacion;
+      }
+      ultimo = ahora;
+
+      // se obtiene la inercia de los nuevos centros y se
+      // conservan si son los mejores
+      EstadisticasIteracion estadisticas = kmedias.obtenerEstadisticas();
+      if(estadisticas != null && estadisticas.esCompleta()){
+         double inercia = estadisticas.calcularErrorMedias(
+                 kmedias.obtenerCentrosT1());
+         if(mejores == null || inercia < medida){
+            medida = inercia;
+            mejores = kmedias.obtenerCentrosT2();
+         }
+      }
+      else{
+         // sin estadisticas el resultado son los ultimos centros
+         mejores = kmedias.obtenerCentrosT2();
+      }
+
+      // se determina si la siguiente iteracion excederia el
+      // tiempo maximo
+      if(ahora - kmedias.obtenerInicio() + estimacion > limite ||
+              kmedias.obtenerContadorIteraciones() >= maxIteraciones){
+         convergencia = true;
+      }
+
+      // se devuelve el resultado
+      return convergencia;
+   }
+
+   /**
+    * devuelve los centros de menor inercia encontrados
+    *
+    * @return mejores centros
+    */
+   @Override
+   public List<Pixel> obtenerMejoresCentros() {
+      return mejores;
+   }
+}
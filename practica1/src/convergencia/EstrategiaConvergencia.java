@@ -1,7 +1,10 @@
 package convergencia;
 
+import imagen.Pixel;
 import kmedias.KMedias;
 
+import java.util.List;
+
 /**
  * interfaz para representar de forma generica
  * la forma de determinar la convergencia del
@@ -24,4 +27,16 @@ public abstract class EstrategiaConvergencia {
    public double obtenerMedida(){
       return medida;
    }
+
+   /**
+    * devuelve los mejores centros encontrados, para las
+    * estrategias que los conservan: al detenerse el algoritmo
+    * seran el resultado en lugar de los ultimos centros
+    *
+    * @return mejores centros o null si la estrategia no los
+    * conserva
+    */
+   public List<Pixel> obtenerMejoresCentros(){
+      return null;
+   }
 }
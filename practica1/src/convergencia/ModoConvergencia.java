@@ -20,5 +20,17 @@ public enum ModoConvergencia {
     * parada por alcanzar determinado nivel de ruido
     * al realizar el filtrado
     */
-   RUIDO
+   RUIDO,
+
+   /**
+    * parada cuando cambian de grupo pocos pixels o su numero
+    * deja de disminuir
+    */
+   CAMBIOS,
+
+   /**
+    * parada cuando la siguiente iteracion excederia un tiempo
+    * maximo de ejecucion
+    */
+   TIEMPO
 }
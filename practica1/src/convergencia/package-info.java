@@ -16,5 +16,11 @@
  *    al limite de iteraciones
  * e) ConvergenciaIteraciones: se limita a comprobar que se ha
  *    alcanzado el limite de iteraciones
+ * f) ConvergenciaCambios: determina la convergencia por la
+ *    fraccion de pixels que cambian de grupo en cada iteracion;
+ *    considera tambien el limite de iteraciones
+ * g) ConvergenciaTiempo: detiene el algoritmo antes de exceder
+ *    un tiempo maximo de ejecucion, conservando los mejores
+ *    centros encontrados
  */
 package convergencia;
\ No newline at end of file
@@ -0,0 +1,394 @@
+package imagen;
+
+import java.util.AbstractList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Objects;
+import java.util.RandomAccess;
+
+/**
+ * almacen de pixels organizado por columnas: las componentes
+ * roja, verde y azul de todos los pixels se guardan en arrays
+ * de tipo primitivo independientes, en lugar de crear un objeto
+ * de la clase Pixel por cada pixel de la imagen. Las componentes
+ * son multiplos de 1/256, por lo que el tipo float las representa
+ * de forma exacta.
+ * El almacen puede contener tambien el histograma de la imagen:
+ * una entrada por cada color distinto, con el numero de pixels
+ * de ese color como peso
+ */
+public class AlmacenPixels {
+   /**
+    * componentes rojas de los pixels
+    */
+   private final float[] rojo;
+
+   /**
+    * componentes verdes de los pixels
+    */
+   private final float[] verde;
+
+   /**
+    * componentes azules de los pixels
+    */
+   private final float[] azul;
+
+   /**
+    * colores originales de los pixels. Se comparte con la
+    * imagen de la que procede el almacen, sin copiarse. En el
+    * caso del histograma contiene los colores distintos,
+    * ordenados de menor a mayor
+    */
+   private final int[] colores;
+
+   /**
+    * peso (numero de pixels) de cada entrada del histograma;
+    * vale null si cada entrada es un unico pixel
+    */
+   private final int[] pesos;
+
+   /**
+    * pesos acumulados de las entradas del histograma: la
+    * posicion i contiene la suma de los pesos de las entradas
+    * 0 a i. Vale null si cada entrada es un unico pixel
+    */
+   private final long[] acumulados;
+
+   /**
+    * constructor de la clase: descompone los colores de la
+    * imagen en sus componentes
+    *
+    * @param imagen imagen de la que se obtienen los pixels
+    */
+   public AlmacenPixels(Imagen imagen) {
+      this(imagen.obtenerDatos(), null);
+   }
+
+   /**
+    * constructor privado a partir de los colores y, en su
+    * caso, de los pesos de cada uno
+    *
+    * @param colores colores de las entradas
+    * @param pesos   pesos de las entradas o null
+    */
+   private AlmacenPixels(int[] colores, int[] pesos) {
+      this.colores = colores;
+      this.pesos = pesos;
+      rojo = new float[colores.length];
+      verde = new float[colores.length];
+      azul = new float[colores.length];
+
+      // se descompone cada color en sus componentes
+      for (int i = 0; i < colores.length; i++) {
+         rojo[i] = (float) RGBA.obtenerComponente(colores[i], ComponentesRGBA.ROJO);
+         verde[i] = (float) RGBA.obtenerComponente(colores[i], ComponentesRGBA.VERDE);
+         azul[i] = (float) RGBA.obtenerComponente(colores[i], ComponentesRGBA.AZUL);
+      }
+
+      // se acumulan los pesos, si los hay
+      if (pesos == null) {
+         acumulados = null;
+      } else {
+         acumulados = new long[pesos.length];
+         long acumulado = 0;
+         for (int i = 0; i < pesos.length; i++) {
+            acumulado += pesos[i];
+            acumulados[i] = acumulado;
+         }
+      }
+   }
+
+   /**
+    * crea el almacen con el histograma de colores de la imagen:
+    * una entrada por cada color distinto (sin considerar la
+    * componente alfa) cuyo peso es el numero de pixels que lo
+    * tienen
+    *
+    * @param imagen imagen de la que se obtienen los colores
+    * @return almacen con el histograma de la imagen
+    */
+   public static AlmacenPixels crearHistograma(Imagen imagen) {
+      int[] datos = imagen.obtenerDatos();
+
+      // se copian los colores, con alfa maximo, y se ordenan
+      // para que los iguales queden consecutivos
+      int[] ordenados = new int[datos.length];
+      for (int i = 0; i < datos.length; i++) {
+         ordenados[i] = 0xff000000 | (datos[i] & 0x00ffffff);
+      }
+      Arrays.sort(ordenados);
+
+      // se compactan los colores repetidos contando cuantos
+      // hay de cada uno
+      int[] pesos = new int[ordenados.length];
+      int distintos = 0;
+      for (int i = 0; i < ordenados.length; i++) {
+         if (distintos > 0 && ordenados[distintos - 1] == ordenados[i]) {
+            pesos[distintos - 1]++;
+         } else {
+            ordenados[distintos] = ordenados[i];
+            pesos[distintos] = 1;
+            distintos++;
+         }
+      }
+
+      // se crea el almacen con los colores distintos
+      return new AlmacenPixels(Arrays.copyOf(ordenados, distintos),
+         Arrays.copyOf(pesos, distintos));
+   }
+
+   /**
+    * devuelve el numero de pixels del almacen (en el caso del
+    * histograma, el numero de colores distintos)
+    *
+    * @return numero de pixels
+    */
+   public int obtenerNumeroPixels() {
+      return colores.length;
+   }
+
+   /**
+    * indica si el almacen contiene el histograma de la imagen
+    *
+    * @return true si las entradas tienen peso
+    */
+   public boolean esHistograma() {
+      return pesos != null;
+   }
+
+   /**
+    * obtiene el peso de una entrada: el numero de pixels de
+    * la imagen que representa
+    *
+    * @param i posicion de la entrada
+    * @return peso de la entrada
+    */
+   public int obtenerPeso(int i) {
+      return pesos == null ? 1 : pesos[i];
+   }
+
+   /**
+    * obtiene el numero de pixels de la imagen representados
+    * por el almacen, es decir, la suma de los pesos
+    *
+    * @return peso total
+    */
+   public long obtenerPesoTotal() {
+      return acumulados == null ? colores.length :
+         acumulados[acumulados.length - 1];
+   }
+
+   /**
+    * localiza la entrada que representa a un pixel de la
+    * imagen, numerando los pixels de 0 al peso total menos
+    * uno. Permite muestrear los pixels de la imagen de forma
+    * uniforme tambien en el caso del histograma
+    *
+    * @param posicion numero del pixel
+    * @return posicion de la entrada que lo representa
+    */
+   public int localizar(long posicion) {
+      if (acumulados == null) {
+         return (int) posicion;
+      }
+
+      // busqueda binaria de la primera entrada cuyo peso
+      // acumulado supera a la posicion
+      int inferior = 0;
+      int superior = acumulados.length - 1;
+      while (inferior < superior) {
+         int medio = (inferior + superior) >>> 1;
+         if (acumulados[medio] > posicion) {
+            superior = medio;
+         } else {
+            inferior = medio + 1;
+         }
+      }
+      return inferior;
+   }
+
+   /**
+    * busca la entrada del histograma que corresponde a un color
+    *
+    * @param color color a buscar (se ignora la componente alfa)
+    * @return posicion de la entrada o un valor negativo si el
+    * color no esta o el almacen no es un histograma
+    */
+   public int buscarColor(int color) {
+      if (pesos == null) {
+         return -1;
+      }
+      return Arrays.binarySearch(colores, 0xff000000 | (color & 0x00ffffff));
+   }
+
+   /**
+    * obtiene la componente roja de un pixel
+    *
+    * @param i posicion del pixel
+    * @return valor de la componente roja
+    */
+   public double obtenerRojo(int i) {
+      return rojo[i];
+   }
+
+   /**
+    * obtiene la componente verde de un pixel
+    *
+    * @param i posicion del pixel
+    * @return valor de la componente verde
+    */
+   public double obtenerVerde(int i) {
+      return verde[i];
+   }
+
+   /**
+    * obtiene la componente azul de un pixel
+    *
+    * @param i posicion del pixel
+    * @return valor de la componente azul
+    */
+   public double obtenerAzul(int i) {
+      return azul[i];
+   }
+
+   /**
+    * obtiene el indice de color de un pixel, con la componente
+    * alfa a su valor maximo (igual que en la clase Pixel)
+    *
+    * @param i posicion del pixel
+    * @return indice del color
+    */
+   public int obtenerIndice(int i) {
+      return 0xff000000 | (colores[i] & 0x00ffffff);
+   }
+
+   /**
+    * crea un objeto de la clase Pixel con las componentes
+    * de un pixel del almacen
+    *
+    * @param i posicion del pixel
+    * @return pixel creado
+    */
+   public Pixel obtenerPixel(int i) {
+      return new Pixel(rojo[i], verde[i], azul[i]);
+   }
+
+   /**
+    * calcula la distancia cuadratica entre un pixel del
+    * almacen y el punto dado por sus componentes
+    *
+    * @param i     posicion del pixel
+    * @param rojo  componente roja del punto
+    * @param verde componente verde del punto
+    * @param azul  componente azul del punto
+    * @return valor de distancia
+    */
+   public double distanciaCuadratica(int i, double rojo, double verde,
+                                     double azul) {
+      double dr = this.rojo[i] - rojo;
+      double dv = this.verde[i] - verde;
+      double da = this.azul[i] - azul;
+      return dr * dr + dv * dv + da * da;
+   }
+
+   /**
+    * determina el centro mas cercano a un pixel del almacen.
+    * Los centros se pasan por componentes; en caso de empate
+    * se devuelve el de menor posicion
+    *
+    * @param i      posicion del pixel
+    * @param rojos  componentes rojas de los centros
+    * @param verdes componentes verdes de los centros
+    * @param azules componentes azules de los centros
+    * @return posicion del centro mas cercano
+    */
+   public int obtenerMasCercano(int i, double[] rojos, double[] verdes,
+                                double[] azules) {
+      return NucleoDistancias.NUCLEO.obtenerMasCercano(rojo[i], verde[i],
+         azul[i], rojos, verdes, azules);
+   }
+
+   /**
+    * determina el centro mas cercano a cada pixel de un intervalo
+    * del almacen y lo anota en el array de asignaciones. Es
+    * equivalente a llamar a obtenerMasCercano para cada pixel,
+    * pero permite al nucleo vectorial tratar varios pixels a la vez
+    *
+    * @param inicio     primer pixel del intervalo
+    * @param fin        posicion siguiente al ultimo pixel
+    * @param rojos      componentes rojas de los centros
+    * @param verdes     componentes verdes de los centros
+    * @param azules     componentes azules de los centros
+    * @param asignacion array donde anotar el centro de cada pixel
+    */
+   public void obtenerMasCercanos(int inicio, int fin, double[] rojos,
+                                  double[] verdes, double[] azules,
+                                  int[] asignacion) {
+      NucleoDistancias.NUCLEO.asignar(rojo, verde, azul, inicio, fin, rojos,
+         verdes, azules, asignacion);
+   }
+
+   /**
+    * calcula el valor de la señal de un pixel del almacen
+    *
+    * @param i posicion del pixel
+    * @return valor calculado
+    */
+   public double calcularSennal(int i) {
+      return Math.sqrt(distanciaCuadratica(i, 0, 0, 0));
+   }
+
+   /**
+    * calcula el ruido de un pixel del almacen con respecto
+    * a un centro dado por sus componentes
+    *
+    * @param i     posicion del pixel
+    * @param rojo  componente roja del centro
+    * @param verde componente verde del centro
+    * @param azul  componente azul del centro
+    * @return valor calculado
+    */
+   public double calcularRuido(int i, double rojo, double verde, double azul) {
+      return Math.sqrt(distanciaCuadratica(i, rojo, verde, azul));
+   }
+
+   /**
+    * ofrece una vista de solo lectura del almacen como lista
+    * de los pixels de la imagen. Los objetos Pixel se crean bajo
+    * demanda al acceder a cada posicion, por lo que no se
+    * mantienen en memoria. En el caso del histograma cada color
+    * aparece tantas veces como indica su peso
+    *
+    * @return lista no modificable de pixels
+    */
+   public List<Pixel> obtenerVista() {
+      return new Vista();
+   }
+
+   /**
+    * clase auxiliar para la vista de solo lectura del almacen
+    */
+   private class Vista extends AbstractList<Pixel> implements RandomAccess {
+      /**
+       * obtiene el pixel de una posicion
+       *
+       * @param i posicion del pixel
+       * @return pixel creado a partir del almacen
+       */
+      @Override
+      public Pixel get(int i) {
+         Objects.checkIndex(i, size());
+         return obtenerPixel(localizar(i));
+      }
+
+      /**
+       * devuelve el numero de pixels de la vista
+       *
+       * @return numero de pixels
+       */
+      @Override
+      public int size() {
+         return (int) obtenerPesoTotal();
+      }
+   }
+}
@@ -1,8 +1,9 @@
 package imagen;
 
+import monitorizacion.EventoConversion;
+
 import java.util.*;
 import java.util.stream.Collectors;
-import java.util.stream.Stream;
 
 /**
  * clase para almacenar y manejar imagenes en formato jpeg
@@ -19,27 +20,49 @@ public class Imagen {
    private final int filas;
 
    /**
-    * lista con valor de color (entre 0 y 255) para los
-    * pixels. Esto es lo que se lee directamente del archivo
-    * de datos
+    * array con el valor de color (ARGB empaquetado en un int)
+    * de los pixels, recorridos por filas. Esto es lo que se
+    * lee directamente del archivo de datos. Se usa un array
+    * de tipo primitivo para ocupar 4 bytes por pixel, frente
+    * a los mas de 20 de una lista de objetos Integer
     */
-   private final List<Integer> datos;
+   private final int[] datos;
 
    /**
-    * constructor de la clase
+    * constructor de la clase a partir de un array de colores.
+    * El array no se copia: la imagen pasa a usarlo directamente
     *
-    * @param columnas numero de filas
-    * @param filas    numero de columnas
-    * @param datos    lista con indices de colores de todos los
+    * @param columnas numero de columnas
+    * @param filas    numero de filas
+    * @param datos    array con indices de colores de todos los
     *                 pixels
     */
-   public Imagen(int columnas, int filas, List<Integer> datos) {
+   public Imagen(int columnas, int filas, int[] datos) {
+      // se comprueba que las dimensiones son coherentes
+      if (datos.length != columnas * filas) {
+         throw new IllegalArgumentException("numero de pixels " +
+            datos.length + " incompatible con " + columnas + "x" + filas);
+      }
+
       // se asignan los datos miembro
       this.columnas = columnas;
       this.filas = filas;
       this.datos = datos;
    }
 
+   /**
+    * constructor de la clase a partir de una lista de colores;
+    * los valores se copian a un array de tipo primitivo
+    *
+    * @param columnas numero de columnas
+    * @param filas    numero de filas
+    * @param datos    lista con indices de colores de todos los
+    *                 pixels
+    */
+   public Imagen(int columnas, int filas, List<Integer> datos) {
+      this(columnas, filas, datos.stream().mapToInt(Integer::intValue).toArray());
+   }
+
    /**
     * devuelve el numero de pixels de ancho
     *
@@ -58,6 +81,26 @@ public class Imagen {
       return filas;
    }
 
+   /**
+    * devuelve el numero total de pixels de la imagen
+    *
+    * @return numero de pixels
+    */
+   public int obtenerNumeroPixels() {
+      return datos.length;
+   }
+
+   /**
+    * da acceso directo (sin copia) al array de colores de la
+    * imagen. Las modificaciones sobre el array se reflejan en
+    * la imagen
+    *
+    * @return array con los colores de los pixels, por filas
+    */
+   public int[] obtenerDatos() {
+      return datos;
+   }
+
    /**
     * obtiene el valor de un pixel concreto en funcion
     * del valor de la fila y columna que ocupa
@@ -68,7 +111,7 @@ public class Imagen {
     */
    public int obtenerColorPixel(int columna, int fila) {
       int offset = Utilidades.convertirIndicesDesplazamiento(columna, fila, columnas);
-      return datos.get(offset);
+      return datos[offset];
    }
 
    /**
@@ -79,7 +122,7 @@ public class Imagen {
     * @return color del pixel de interes
     */
    public int obtenerColorPixel(int desplazamiento) {
-      return datos.get(desplazamiento);
+      return datos[desplazamiento];
    }
 
    /**
@@ -91,7 +134,12 @@ public class Imagen {
     * representar el contenido de la imagen
     */
    public List<Pixel> convertirIndicesColoresPixels() {
-      return datos.stream().map(RGBA::generarPixel).collect(Collectors.toList());
+      EventoConversion evento = new EventoConversion();
+      evento.begin();
+      List<Pixel> pixels = Arrays.stream(datos).mapToObj(RGBA::generarPixel)
+              .collect(Collectors.toList());
+      registrarConversion(evento);
+      return pixels;
    }
 
 
@@ -105,13 +153,16 @@ public class Imagen {
     * representar el contenido de la imagen
     */
    public List<Pixel> convertirIndicesColoresPixelsImperativo() {
+      EventoConversion evento = new EventoConversion();
+      evento.begin();
+
       // se crea la lista a devolver
-      ArrayList<Pixel> pixels = new ArrayList<>();
+      ArrayList<Pixel> pixels = new ArrayList<>(datos.length);
 
       // recorrer todo el array de datos y convertimos
       // cada indice de color en el pixel correspondiente
-      for(int i=0; i < datos.size(); i++){
-         int indiceColor = datos.get(i);
+      for(int i=0; i < datos.length; i++){
+         int indiceColor = datos[i];
 
          // agrego a la lista el nuevo objeto asociado
          // a ese indice de color
@@ -119,9 +170,25 @@ public class Imagen {
       }
 
       // devuelve la lista de pixels
+      registrarConversion(evento);
       return pixels;
    }
 
+   /**
+    * termina el evento de conversion de la imagen y lo registra
+    * si hay grabacion activa
+    *
+    * @param evento evento iniciado antes de la conversion
+    */
+   private void registrarConversion(EventoConversion evento) {
+      evento.end();
+      if(evento.shouldCommit()){
+         evento.asignarPixels(datos.length);
+         evento.asignarEntradas(datos.length);
+         evento.commit();
+      }
+   }
+
    /**
     * se determina el numero de colores diferentes de
     * la imagen FUNCIONAL
@@ -129,7 +196,7 @@ public class Imagen {
     * @return numero de colores presentes en la imagen
     */
    public long obtenerNumeroColores() {
-      return datos.stream().distinct().count();
+      return Arrays.stream(datos).distinct().count();
    }
 
    /**
@@ -146,9 +213,9 @@ public class Imagen {
 
       // se recorren los pixels para considerar su
       // indice de color
-      for(int i=0; i < datos.size(); i++){
+      for(int i=0; i < datos.length; i++){
          // obtenemos el color del pixel considerado
-         int color = datos.get(i);
+         int color = datos[i];
          Integer contadorColor = mapa.get(color);
 
          // si no estaba ese color, contadorColor sera
@@ -0,0 +1,95 @@
+package imagen;
+
+/**
+ * nucleo de calculo del centro mas cercano a cada pixel, el calculo
+ * mas repetido del algoritmo (n * k distancias por iteracion). Los
+ * pixels y los centros se pasan por componentes, en arrays de tipo
+ * primitivo. Esta clase realiza el calculo de forma escalar; la
+ * subclase NucleoDistanciasVectorial usa el modulo
+ * jdk.incubator.vector para tratar varios pixels en cada
+ * instruccion, y se usa siempre que el modulo este disponible.
+ * Ambas devuelven exactamente el mismo resultado
+ */
+class NucleoDistancias {
+   /**
+    * nombre de la clase con la implementacion vectorial: se carga
+    * por reflexion para que su ausencia no impida usar la escalar
+    */
+   private static final String CLASE_VECTORIAL = "imagen.NucleoDistanciasVectorial";
+
+   /**
+    * nucleo usado por la aplicacion
+    */
+   static final NucleoDistancias NUCLEO = crear();
+
+   /**
+    * crea el nucleo vectorial si el modulo jdk.incubator.vector
+    * esta disponible en la ejecucion (opcion --add-modules) y el
+    * escalar en otro caso
+    *
+    * @return nucleo creado
+    */
+   private static NucleoDistancias crear() {
+      try {
+         return (NucleoDistancias) Class.forName(CLASE_VECTORIAL).
+                 getDeclaredConstructor().newInstance();
+      } catch (ReflectiveOperationException | LinkageError e) {
+         // el modulo no esta disponible: se usa el nucleo escalar
+         return new NucleoDistancias();
+      }
+   }
+
+   /**
+    * determina el centro mas cercano a un punto. En caso de empate
+    * se devuelve el de menor posicion
+    *
+    * @param rojo   componente roja del punto
+    * @param verde  componente verde del punto
+    * @param azul   componente azul del punto
+    * @param rojos  componentes rojas de los centros
+    * @param verdes componentes verdes de los centros
+    * @param azules componentes azules de los centros
+    * @return posicion del centro mas cercano
+    */
+   int obtenerMasCercano(double rojo, double verde, double azul,
+                         double[] rojos, double[] verdes, double[] azules) {
+      int minimo = 0;
+      double minimaDistancia = Double.POSITIVE_INFINITY;
+
+      // se consideran todos los centros
+      for (int j = 0; j < rojos.length; j++) {
+         double dr = rojo - rojos[j];
+         double dv = verde - verdes[j];
+         double da = azul - azules[j];
+         double distancia = dr * dr + dv * dv + da * da;
+         if (minimaDistancia > distancia) {
+            minimaDistancia = distancia;
+            minimo = j;
+         }
+      }
+      return minimo;
+   }
+
+   /**
+    * determina el centro mas cercano a cada pixel de un intervalo
+    * y lo anota en la misma posicion del array destino
+    *
+    * @param rojo    componentes rojas de los pixels
+    * @param verde   componentes verdes de los pixels
+    * @param azul    componentes azules de los pixels
+    * @param inicio  primer pixel del intervalo
+    * @param fin     posicion siguiente al ultimo pixel
+    * @param rojos   componentes rojas de los centros
+    * @param verdes  componentes verdes de los centros
+    * @param azules  componentes azules de los centros
+    * @param destino array donde anotar los centros
+    */
+   void asignar(float[] rojo, float[] verde, float[] azul, int inicio,
+                int fin, double[] rojos, double[] verdes, double[] azules,
+                int[] destino) {
+      for (int i = inicio; i < fin; i++) {
+         destino[i] = obtenerMasCercano(rojo[i], verde[i], azul[i], rojos,
+            verdes, azules);
+      }
+   }
+}
@@ -0,0 +1,228 @@
+package imagen;
+
+import jdk.incubator.vector.DoubleVector;
+import jdk.incubator.vector.FloatVector;
+import jdk.incubator.vector.VectorMask;
+import jdk.incubator.vector.VectorOperators;
+import jdk.incubator.vector.VectorShape;
+import jdk.incubator.vector.VectorSpecies;
+
+/**
+ * nucleo vectorial: trata en cada instruccion tantos pixels como
+ * valores double caben en el vector preferido del procesador,
+ * recorriendo los centros de uno en uno; cada centro se compara a
+ * la vez con varios vectores de pixels. Cada carril conserva la
+ * menor distancia de su pixel y la posicion del centro que la
+ * produce. Las operaciones son las mismas que en el nucleo escalar
+ * y en el mismo orden, y las componentes float se convierten a
+ * double sin perdida, por lo que el resultado es identico. Requiere
+ * el modulo jdk.incubator.vector
+ */
+class NucleoDistanciasVectorial extends NucleoDistancias {
+   /**
+    * forma de los vectores de calculo
+    */
+   private static final VectorSpecies<Double> ESPECIE = DoubleVector.SPECIES_PREFERRED;
+
+   /**
+    * forma de los vectores con los que se leen las componentes de
+    * los pixels: mismo numero de carriles con la mitad de bits
+    */
+   private static final VectorSpecies<Float> ESPECIE_LECTURA =
+           FloatVector.SPECIES_PREFERRED.withShape(
+                   VectorShape.forBitSize(ESPECIE.vectorBitSize() / 2));
+
+   /**
+    * numero de vectores de pixels que se tratan a la vez: al ser
+    * independientes, sus comparaciones se solapan en el procesador
+    */
+   private static final int VECTORES_BLOQUE = 4;
+
+   /**
+    * determina el centro mas cercano a cada pixel de un intervalo.
+    * Los pixels se tratan en bloques de VECTORES_BLOQUE vectores,
+    * despues de vector en vector y los que no completan un vector
+    * de uno en uno
+    *
+    * @param rojo    componentes rojas de los pixels
+    * @param verde   componentes verdes de los pixels
+    * @param azul    componentes azules de los pixels
+    * @param inicio  primer pixel del intervalo
+    * @param fin     posicion siguiente al ultimo pixel
+    * @param rojos   componentes rojas de los centros
+    * @param verdes  componentes verdes de los centros
+    * @param azules  componentes azules de los centros
+    * @param destino array donde anotar los centros
+    */
+   @Override
+   void asignar(float[] rojo, float[] verde, float[] azul, int inicio,
+                int fin, double[] rojos, double[] verdes, double[] azules,
+                int[] destino) {
+      int i = asignarBloques(rojo, verde, azul, inicio, fin, rojos, verdes,
+         azules, destino);
+      i = asignarVectores(rojo, verde, azul, i, fin, rojos, verdes, azules,
+         destino);
+
+      // se tratan los pixels restantes
+      super.asignar(rojo, verde, azul, i, fin, rojos, verdes, azules,
+         destino);
+   }
+
+   /**
+    * determina el centro mas cercano a los pixels de un intervalo en
+    * bloques de VECTORES_BLOQUE vectores consecutivos. Cada centro se
+    * compara con todos los vectores del bloque antes de pasar al
+    * siguiente. Los vectores se mantienen en variables locales de
+    * este metodo para que el compilador los conserve en registros
+    *
+    * @param rojo    componentes rojas de los pixels
+    * @param verde   componentes verdes de los pixels
+    * @param azul    componentes azules de los pixels
+    * @param inicio  primer pixel del intervalo
+    * @param fin     posicion siguiente al ultimo pixel
+    * @param rojos   componentes rojas de los centros
+    * @param verdes  componentes verdes de los centros
+    * @param azules  componentes azules de los centros
+    * @param destino array donde anotar los centros
+    * @return posicion del primer pixel no tratado
+    */
+   private static int asignarBloques(float[] rojo, float[] verde, float[] azul,
+                                     int inicio, int fin, double[] rojos,
+                                     double[] verdes, double[] azules,
+                                     int[] destino) {
+      int carriles = ESPECIE.length();
+      int i = inicio;
+      for (; i <= fin - VECTORES_BLOQUE * carriles; i += VECTORES_BLOQUE * carriles) {
+         DoubleVector rojo0 = leer(rojo, i);
+         DoubleVector verde0 = leer(verde, i);
+         DoubleVector azul0 = leer(azul, i);
+         DoubleVector rojo1 = leer(rojo, i + carriles);
+         DoubleVector verde1 = leer(verde, i + carriles);
+         DoubleVector azul1 = leer(azul, i + carriles);
+         DoubleVector rojo2 = leer(rojo, i + 2 * carriles);
+         DoubleVector verde2 = leer(verde, i + 2 * carriles);
+         DoubleVector azul2 = leer(azul, i + 2 * carriles);
+         DoubleVector rojo3 = leer(rojo, i + 3 * carriles);
+         DoubleVector verde3 = leer(verde, i + 3 * carriles);
+         DoubleVector azul3 = leer(azul, i + 3 * carriles);
+         DoubleVector minimas0 = DoubleVector.broadcast(ESPECIE,
+                 Double.POSITIVE_INFINITY);
+         DoubleVector minimas1 = minimas0;
+         DoubleVector minimas2 = minimas0;
+         DoubleVector minimas3 = minimas0;
+         DoubleVector minimos0 = DoubleVector.zero(ESPECIE);
+         DoubleVector minimos1 = minimos0;
+         DoubleVector minimos2 = minimos0;
+         DoubleVector minimos3 = minimos0;
+
+         // la comparacion estricta conserva el primer minimo
+         for (int j = 0; j < rojos.length; j++) {
+            double rojoCentro = rojos[j];
+            double verdeCentro = verdes[j];
+            double azulCentro = azules[j];
+
+            DoubleVector dr = rojo0.sub(rojoCentro);
+            DoubleVector dv = verde0.sub(verdeCentro);
+            DoubleVector da = azul0.sub(azulCentro);
+            DoubleVector distancias = dr.mul(dr).add(dv.mul(dv)).add(da.mul(da));
+            VectorMask<Double> mejoras = distancias.lt(minimas0);
+            minimas0 = minimas0.blend(distancias, mejoras);
+            minimos0 = minimos0.blend(j, mejoras);
+
+            dr = rojo1.sub(rojoCentro);
+            dv = verde1.sub(verdeCentro);
+            da = azul1.sub(azulCentro);
+            distancias = dr.mul(dr).add(dv.mul(dv)).add(da.mul(da));
+            mejoras = distancias.lt(minimas1);
+            minimas1 = minimas1.blend(distancias, mejoras);
+            minimos1 = minimos1.blend(j, mejoras);
+
+            dr = rojo2.sub(rojoCentro);
+            dv = verde2.sub(verdeCentro);
+            da = azul2.sub(azulCentro);
+            distancias = dr.mul(dr).add(dv.mul(dv)).add(da.mul(da));
+            mejoras = distancias.lt(minimas2);
+            minimas2 = minimas2.blend(distancias, mejoras);
+            minimos2 = minimos2.blend(j, mejoras);
+
+            dr = rojo3.sub(rojoCentro);
+            dv = verde3.sub(verdeCentro);
+            da = azul3.sub(azulCentro);
+            distancias = dr.mul(dr).add(dv.mul(dv)).add(da.mul(da));
+            mejoras = distancias.lt(minimas3);
+            minimas3 = minimas3.blend(distancias, mejoras);
+            minimos3 = minimos3.blend(j, mejoras);
+         }
+
+         // se anotan los centros de los pixels del bloque
+         for (int carril = 0; carril < carriles; carril++) {
+            destino[i + carril] = (int) minimos0.lane(carril);
+            destino[i + carriles + carril] = (int) minimos1.lane(carril);
+            destino[i + 2 * carriles + carril] = (int) minimos2.lane(carril);
+            destino[i + 3 * carriles + carril] = (int) minimos3.lane(carril);
+         }
+      }
+      return i;
+   }
+
+   /**
+    * determina el centro mas cercano a los pixels de un intervalo de
+    * vector en vector
+    *
+    * @param rojo    componentes rojas de los pixels
+    * @param verde   componentes verdes de los pixels
+    * @param azul    componentes azules de los pixels
+    * @param inicio  primer pixel del intervalo
+    * @param fin     posicion siguiente al ultimo pixel
+    * @param rojos   componentes rojas de los centros
+    * @param verdes  componentes verdes de los centros
+    * @param azules  componentes azules de los centros
+    * @param destino array donde anotar los centros
+    * @return posicion del primer pixel no tratado
+    */
+   private static int asignarVectores(float[] rojo, float[] verde, float[] azul,
+                                      int inicio, int fin, double[] rojos,
+                                      double[] verdes, double[] azules,
+                                      int[] destino) {
+      int carriles = ESPECIE.length();
+      int i = inicio;
+      for (; i <= fin - carriles; i += carriles) {
+         DoubleVector rojoPixels = leer(rojo, i);
+         DoubleVector verdePixels = leer(verde, i);
+         DoubleVector azulPixels = leer(azul, i);
+         DoubleVector minimas = DoubleVector.broadcast(ESPECIE,
+                 Double.POSITIVE_INFINITY);
+         DoubleVector minimos = DoubleVector.zero(ESPECIE);
+
+         // la comparacion estricta conserva el primer minimo
+         for (int j = 0; j < rojos.length; j++) {
+            DoubleVector dr = rojoPixels.sub(rojos[j]);
+            DoubleVector dv = verdePixels.sub(verdes[j]);
+            DoubleVector da = azulPixels.sub(azules[j]);
+            DoubleVector distancias = dr.mul(dr).add(dv.mul(dv)).add(da.mul(da));
+            VectorMask<Double> mejoras = distancias.lt(minimas);
+            minimas = minimas.blend(distancias, mejoras);
+            minimos = minimos.blend(j, mejoras);
+         }
+
+         // se anotan los centros de los pixels del vector
+         for (int carril = 0; carril < carriles; carril++) {
+            destino[i + carril] = (int) minimos.lane(carril);
+         }
+      }
+      return i;
+   }
+
+   /**
+    * lee las componentes de un vector de pixels y las convierte a
+    * double
+    *
+    * @param componentes array de componentes
+    * @param i           posicion del primer pixel
+    * @return vector con las componentes
+    */
+   private static DoubleVector leer(float[] componentes, int i) {
+      return (DoubleVector) FloatVector.fromArray(ESPECIE_LECTURA, componentes, i).
+              convertShape(VectorOperators.F2D, ESPECIE, 0);
+   }
+}
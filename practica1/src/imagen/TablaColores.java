@@ -0,0 +1,213 @@
+package imagen;
+
+import java.util.Arrays;
+
+/**
+ * tabla que numera los colores distintos de una imagen (sin
+ * considerar la componente alfa) en el orden en que aparecen.
+ * Permite calcular una sola vez el centro mas cercano a cada color
+ * distinto, todos a la vez, y sustituir despues cada pixel por el
+ * centro de su numero.
+ * Usa direccionamiento abierto sobre arrays de tipo primitivo; si
+ * la imagen tiene al menos tantos pixels como colores posibles,
+ * usa directamente un array con una posicion por color
+ */
+public class TablaColores {
+   /**
+    * numero de colores posibles (24 bits)
+    */
+   private static final int NUMERO_COLORES = 1 << 24;
+
+   /**
+    * marca de posicion libre: ningun color de 24 bits es negativo
+    */
+   private static final int LIBRE = -1;
+
+   /**
+    * carga maxima de la tabla antes de ampliarla
+    */
+   private static final double CARGA_MAXIMA = 0.5;
+
+   /**
+    * colores almacenados en cada posicion (o LIBRE); vale null
+    * si se usa el array directo
+    */
+   private int[] claves;
+
+   /**
+    * numero de cada color: en la tabla directa la posicion es el
+    * propio color y LIBRE indica que no esta numerado
+    */
+   private int[] valores;
+
+   /**
+    * colores distintos en el orden en que se han numerado
+    */
+   private int[] distintos;
+
+   /**
+    * numero de colores almacenados
+    */
+   private int ocupados;
+
+   /**
+    * constructor de la clase
+    *
+    * @param numeroPixels numero de pixels de la imagen, usado
+    *                     para elegir el tipo y tamaño inicial
+    *                     de la tabla
+    */
+   public TablaColores(int numeroPixels) {
+      if (numeroPixels >= NUMERO_COLORES) {
+         claves = null;
+         valores = new int[NUMERO_COLORES];
+         Arrays.fill(valores, LIBRE);
+      } else {
+         // tamaño inicial: potencia de dos suficiente para una
+         // fraccion de los pixels, que se amplia si es necesario
+         int capacidad = Integer.highestOneBit(Math.max(16, numeroPixels / 4)) << 1;
+         claves = new int[capacidad];
+         valores = new int[capacidad];
+         Arrays.fill(claves, LIBRE);
+      }
+      distintos = new int[16];
+      ocupados = 0;
+   }
+
+   /**
+    * obtiene el numero de un color; si el color no se habia
+    * numerado, se le asigna el siguiente numero libre
+    *
+    * @param color color a buscar (se ignora la componente alfa)
+    * @return numero del color
+    */
+   public int numerar(int color) {
+      int clave = color & 0x00ffffff;
+
+      // tabla directa
+      if (claves == null) {
+         if (valores[clave] == LIBRE) {
+            valores[clave] = registrar(clave);
+         }
+         return valores[clave];
+      }
+
+      // busqueda lineal a partir de la posicion del color
+      int mascara = claves.length - 1;
+      int posicion = dispersar(clave) & mascara;
+      while (claves[posicion] != LIBRE) {
+         if (claves[posicion] == clave) {
+            return valores[posicion];
+         }
+         posicion = (posicion + 1) & mascara;
+      }
+
+      // el color no esta: se numera y se guarda
+      int valor = registrar(clave);
+      claves[posicion] = clave;
+      valores[posicion] = valor;
+      if (ocupados > claves.length * CARGA_MAXIMA) {
+         ampliar();
+      }
+      return valor;
+   }
+
+   /**
+    * determina el centro mas cercano a cada color numerado. Los
+    * colores se tratan todos a la vez con el nucleo de distancias
+    *
+    * @param rojos  componentes rojas de los centros
+    * @param verdes componentes verdes de los centros
+    * @param azules componentes azules de los centros
+    * @return array con la posicion del centro mas cercano a cada
+    * color, indexado por el numero del color
+    */
+   public int[] obtenerMasCercanos(double[] rojos, double[] verdes,
+                                   double[] azules) {
+      // se descomponen los colores distintos en sus componentes
+      float[] rojo = new float[ocupados];
+      float[] verde = new float[ocupados];
+      float[] azul = new float[ocupados];
+      for (int i = 0; i < ocupados; i++) {
+         rojo[i] = (float) RGBA.obtenerComponente(distintos[i], ComponentesRGBA.ROJO);
+         verde[i] = (float) RGBA.obtenerComponente(distintos[i], ComponentesRGBA.VERDE);
+         azul[i] = (float) RGBA.obtenerComponente(distintos[i], ComponentesRGBA.AZUL);
+      }
+
+      // se asigna cada color a su centro mas cercano
+      int[] masCercanos = new int[ocupados];
+      NucleoDistancias.NUCLEO.asignar(rojo, verde, azul, 0, ocupados, rojos,
+         verdes, azules, masCercanos);
+      return masCercanos;
+   }
+
+   /**
+    * obtiene el color al que corresponde un numero
+    *
+    * @param numero numero del color
+    * @return color de 24 bits
+    */
+   public int obtenerColor(int numero) {
+      return distintos[numero];
+   }
+
+   /**
+    * devuelve el numero de colores distintos almacenados
+    *
+    * @return numero de colores
+    */
+   public int obtenerNumeroColores() {
+      return ocupados;
+   }
+
+   /**
+    * anota un color nuevo en la lista de colores distintos
+    *
+    * @param clave color de 24 bits
+    * @return numero asignado al color
+    */
+   private int registrar(int clave) {
+      if (ocupados == distintos.length) {
+         distintos = Arrays.copyOf(distintos, ocupados << 1);
+      }
+      distintos[ocupados] = clave;
+      return ocupados++;
+   }
+
+   /**
+    * duplica la capacidad de la tabla, recolocando los colores
+    * almacenados
+    */
+   private void ampliar() {
+      int[] clavesAnteriores = claves;
+      int[] valoresAnteriores = valores;
+      claves = new int[clavesAnteriores.length << 1];
+      valores = new int[clavesAnteriores.length << 1];
+      Arrays.fill(claves, LIBRE);
+
+      // se recoloca cada color en la nueva tabla
+      int mascara = claves.length - 1;
+      for (int i = 0; i < clavesAnteriores.length; i++) {
+         if (clavesAnteriores[i] != LIBRE) {
+            int posicion = dispersar(clavesAnteriores[i]) & mascara;
+            while (claves[posicion] != LIBRE) {
+               posicion = (posicion + 1) & mascara;
+            }
+            claves[posicion] = clavesAnteriores[i];
+            valores[posicion] = valoresAnteriores[i];
+         }
+      }
+   }
+
+   /**
+    * mezcla los bits del color para repartir en la tabla colores
+    * proximos
+    *
+    * @param clave color de 24 bits
+    * @return valor de dispersion
+    */
+   private static int dispersar(int clave) {
+      int h = clave * 0x9e3779b9;
+      return h ^ (h >>> 16);
+   }
+}
@@ -1,7 +1,10 @@
 package imagen;
 
+import monitorizacion.EventoCarga;
+import monitorizacion.EventoGuardado;
+
 import javax.imageio.ImageIO;
-import java.awt.image.BufferedImage;
+import java.awt.image.*;
 import java.io.*;
 import java.util.ArrayList;
 import java.util.List;
@@ -67,6 +70,38 @@ public interface Utilidades {
       return new Pixel(sumaRojo, sumaVerde, sumaAzul);
    }
 
+   /**
+    * metodo estatico para obtener el centro de un grupo de
+    * pixels a partir de las sumas acumuladas de sus
+    * componentes y del numero (o peso total) de pixels
+    *
+    * @param sumaRojo  suma de las componentes rojas
+    * @param sumaVerde suma de las componentes verdes
+    * @param sumaAzul  suma de las componentes azules
+    * @param peso      numero de pixels acumulados
+    * @return pixel cuyas componentes son los valores
+    * medios calculados
+    */
+   static Pixel calcularMedia(double sumaRojo, double sumaVerde,
+                              double sumaAzul, double peso) {
+      return new Pixel(sumaRojo / peso, sumaVerde / peso, sumaAzul / peso);
+   }
+
+   /**
+    * obtiene en un array los valores de una componente de
+    * todos los pixels de una lista, para poder recorrerlos
+    * sin acceder a los objetos
+    *
+    * @param pixels   lista de pixels
+    * @param objetivo componente de interes
+    * @return array con los valores de la componente
+    */
+   static double[] obtenerComponentes(List<Pixel> pixels,
+                                      ComponentesRGBA objetivo) {
+      return pixels.stream().mapToDouble(pixel ->
+              pixel.obtenerComponente(objetivo)).toArray();
+   }
+
    /**
     * calcula los valores minimos y maximos para todos
     * los pixels de una coleccion FUNCIONAL
@@ -126,6 +161,62 @@ public interface Utilidades {
       return minMax;
    }
 
+   /**
+    * calcula los valores minimos y maximos de los indices
+    * de color de los pixels de un almacen FUNCIONAL
+    *
+    * @param almacen almacen de pixels a considerar
+    * @return lista con el minimo y maximo indice de
+    * colores
+    */
+   static List<Integer> obtenerMinimoMaximo(AlmacenPixels almacen) {
+      // creo una lista para devolver los valores
+      ArrayList<Integer> minMax = new ArrayList<>();
+
+      //obtengo el minimo y el maximo
+      minMax.add(IntStream.range(0, almacen.obtenerNumeroPixels())
+              .map(almacen::obtenerIndice).min().getAsInt());
+
+      minMax.add(IntStream.range(0, almacen.obtenerNumeroPixels())
+              .map(almacen::obtenerIndice).max().getAsInt());
+
+      // devolver la lista
+      return minMax;
+   }
+
+   /**
+    * calcula los valores minimos y maximos de los indices
+    * de color de los pixels de un almacen de forma imperativa
+    *
+    * @param almacen almacen de pixels a considerar
+    * @return lista con el minimo y maximo indice de
+    * colores
+    */
+   static List<Integer> obtenerMinimoMaximoImperativa(AlmacenPixels almacen) {
+      // inicializar los valores minimo y maximo
+      int minimo = almacen.obtenerIndice(0);
+      int maximo = minimo;
+
+      // se consideran todos los pixels
+      for(int i=1; i < almacen.obtenerNumeroPixels(); i++){
+         int indiceColor = almacen.obtenerIndice(i);
+         if(indiceColor < minimo){
+            minimo = indiceColor;
+         }
+         if(indiceColor > maximo){
+            maximo = indiceColor;
+         }
+      }
+
+      // creo una lista para devolver los valores calculados
+      ArrayList<Integer> minMax = new ArrayList<>();
+      minMax.add(minimo);
+      minMax.add(maximo);
+
+      // devolver la lista
+      return minMax;
+   }
+
    /**
     * obtiene una lista con todos los pixels cuyo indice
     * de color pertenece al intervalo especificado por
@@ -175,10 +266,12 @@ public interface Utilidades {
     * @return imagen cargada
     */
    static Imagen cargarImagen(String ruta) {
+      EventoCarga evento = new EventoCarga();
+      evento.begin();
       Imagen imagen = null;
       try {
          FileInputStream fichero = new FileInputStream(ruta);
-         imagen = cargarImagen(fichero);
+         imagen = cargarImagenRaster(fichero);
 
          // se asigna la ruta del fichero
          fichero.close();
@@ -187,6 +280,42 @@ public interface Utilidades {
          System.out.println(e);
       }
 
+      // se registra la carga si hay grabacion activa
+      evento.end();
+      if(evento.shouldCommit()){
+         evento.asignarRuta(ruta);
+         if(imagen != null){
+            evento.asignarPixels((long) imagen.obtenerColumnas() *
+                    imagen.obtenerFilas());
+         }
+         evento.commit();
+      }
+
+      // se devuelve la imagen creada o null
+      return imagen;
+   }
+
+   /**
+    * metodo auxiliar para realizar la carga de los datos
+    * de la imagen y la construccion del objeto
+    * correspondiente, accediendo en bloque al raster de la
+    * imagen decodificada en lugar de pixel a pixel
+    *
+    * @param flujo flujo a usar para la carga de datos
+    * @return imagen cargada
+    */
+   private static Imagen cargarImagenRaster(InputStream flujo) {
+      Imagen imagen = null;
+
+      try{
+         BufferedImage buffer = ImageIO.read(flujo);
+
+         // se construye la imagen a partir del raster
+         imagen = convertirBufferImagen(buffer);
+      }catch(Exception e){
+         System.out.println("error al cargar la imagen");
+         System.out.println(e);
+      }
       // se devuelve la imagen creada o null
       return imagen;
    }
@@ -207,11 +336,11 @@ public interface Utilidades {
 
          int dimension = buffer.getHeight()*buffer.getWidth();
 
-         // se crea una lista con los indices de los colores
-         List<Integer> datos = IntStream.range(0,dimension).boxed()
-                 .map(i -> convertirDesplazamientoIndices(i,buffer.getWidth()))
-                 .map(indice -> buffer.getRGB(indice.get(0), indice.get(1)))
-                 .collect(Collectors.toList());
+         // se crea un array con los indices de los colores
+         int[] datos = IntStream.range(0,dimension)
+                 .mapToObj(i -> convertirDesplazamientoIndices(i,buffer.getWidth()))
+                 .mapToInt(indice -> buffer.getRGB(indice.get(0), indice.get(1)))
+                 .toArray();
 
          // se puede crear la imagen
          imagen = new Imagen(buffer.getWidth(), buffer.getHeight(), datos);
@@ -235,13 +364,13 @@ public interface Utilidades {
       try{
          BufferedImage buffer = ImageIO.read(flujo);
 
-         // se crea una lista con los indices de los colores
-         List<Integer> datos = new ArrayList<>();
+         // se crea un array con los indices de los colores
          int dimension = buffer.getHeight()*buffer.getWidth();
+         int[] datos = new int[dimension];
          for(int i=0; i < dimension; i++){
             List<Integer> indices = convertirDesplazamientoIndices(i,
                     buffer.getWidth());
-            datos.add(buffer.getRGB(indices.get(0), indices.get(1)));
+            datos[i] = buffer.getRGB(indices.get(0), indices.get(1));
          }
 
          // se puede crear la imagen
@@ -262,6 +391,8 @@ public interface Utilidades {
     * @param ruta   ruta del archivo a generar
     */
    static void salvarImagen(Imagen imagen, String ruta) {
+      EventoGuardado evento = new EventoGuardado();
+      evento.begin();
       try{
          FileOutputStream fichero = new FileOutputStream(ruta);
          BufferedImage buffer = new BufferedImage(
@@ -271,16 +402,12 @@ public interface Utilidades {
          // recorrido para almacenar los pixels
          int dimension = imagen.obtenerColumnas() * imagen.obtenerFilas();
 
-         List<List<Integer>> indices = IntStream.range(0,dimension).boxed().
-                 map(i -> convertirDesplazamientoIndices(i, imagen.obtenerColumnas()))
-                 .collect(Collectors.toList());
-
-         IntStream.range(0,dimension).boxed()
-                 .forEach(integer -> buffer.setRGB(
-                         indices.get(integer).get(0),
-                         indices.get(integer).get(1),
-                         imagen.obtenerColorPixel(integer)
-                 ));
+         IntStream.range(0,dimension).forEach(i -> {
+                    List<Integer> indices =
+                            convertirDesplazamientoIndices(i, imagen.obtenerColumnas());
+                    buffer.setRGB(indices.get(0), indices.get(1),
+                            imagen.obtenerColorPixel(i));
+                 });
 
          // se guarda el buffer
          ImageIO.write(buffer, "png", fichero);
@@ -289,6 +416,7 @@ public interface Utilidades {
          System.out.println("error en almacenamiento de archivo");
          System.out.println(e);
       }
+      registrarGuardado(evento, imagen, ruta);
    }
 
    /**
@@ -299,6 +427,8 @@ public interface Utilidades {
     * @param ruta   ruta del archivo a generar
     */
    static void salvarImagenImperativa(Imagen imagen, String ruta) {
+      EventoGuardado evento = new EventoGuardado();
+      evento.begin();
       try{
          FileOutputStream fichero = new FileOutputStream(ruta);
          BufferedImage buffer = new BufferedImage(
@@ -321,6 +451,124 @@ public interface Utilidades {
          System.out.println("error en almacenamiento de archivo");
          System.out.println(e);
       }
+      registrarGuardado(evento, imagen, ruta);
+   }
+
+   /**
+    * metodo publico para guardar una imagen en una
+    * ruta, entregando al codificador un buffer que usa
+    * directamente el array de colores de la imagen
+    *
+    * @param imagen imagen a salvar
+    * @param ruta   ruta del archivo a generar
+    */
+   static void salvarImagenRaster(Imagen imagen, String ruta) {
+      EventoGuardado evento = new EventoGuardado();
+      evento.begin();
+      try{
+         FileOutputStream fichero = new FileOutputStream(ruta);
+         BufferedImage buffer = convertirImagenBuffer(imagen);
+
+         // se guarda el buffer
+         ImageIO.write(buffer, "png", fichero);
+         fichero.close();
+      }catch (Exception e){
+         System.out.println("error en almacenamiento de archivo");
+         System.out.println(e);
+      }
+      registrarGuardado(evento, imagen, ruta);
+   }
+
+   /**
+    * termina el evento de guardado de una imagen y lo registra
+    * si hay grabacion activa
+    *
+    * @param evento evento iniciado antes del guardado
+    * @param imagen imagen guardada
+    * @param ruta   ruta del archivo generado
+    */
+   private static void registrarGuardado(EventoGuardado evento, Imagen imagen,
+                                         String ruta) {
+      evento.end();
+      if(evento.shouldCommit()){
+         evento.asignarPixels((long) imagen.obtenerColumnas() *
+                 imagen.obtenerFilas());
+         evento.asignarRuta(ruta);
+         evento.commit();
+      }
+   }
+
+   /**
+    * construye una imagen a partir de un buffer. Si el buffer
+    * es de tipo INT_ARGB sin desplazamientos, la imagen usa
+    * directamente su array de datos, sin copia. Si es de tipo
+    * 4BYTE_ABGR (el habitual al leer PNG) se reempaquetan los
+    * bytes en un solo recorrido; en otro caso se hace una unica
+    * conversion en bloque a ARGB
+    *
+    * @param buffer buffer con los datos de la imagen
+    * @return imagen construida
+    */
+   static Imagen convertirBufferImagen(BufferedImage buffer) {
+      int columnas = buffer.getWidth();
+      int filas = buffer.getHeight();
+      int dimension = columnas * filas;
+      WritableRaster raster = buffer.getRaster();
+      DataBuffer datosRaster = raster.getDataBuffer();
+      int[] datos;
+
+      // el raster debe cubrir el buffer completo, sin
+      // desplazamientos respecto a su origen
+      boolean completo = raster.getSampleModelTranslateX() == 0 &&
+              raster.getSampleModelTranslateY() == 0 &&
+              datosRaster.getNumBanks() == 1 && datosRaster.getOffset() == 0;
+
+      if(completo && buffer.getType() == BufferedImage.TYPE_INT_ARGB &&
+              datosRaster.getSize() == dimension){
+         // se usa el array del raster directamente
+         datos = ((DataBufferInt) datosRaster).getData();
+      }
+      else if(completo && buffer.getType() == BufferedImage.TYPE_4BYTE_ABGR &&
+              datosRaster.getSize() == 4 * dimension){
+         // se reempaquetan los bytes (a, b, g, r) en enteros ARGB
+         byte[] bytes = ((DataBufferByte) datosRaster).getData();
+         datos = new int[dimension];
+         for(int i=0, j=0; i < dimension; i++, j += 4){
+            datos[i] = (bytes[j] & 0xff) << 24 |
+                    (bytes[j + 3] & 0xff) << 16 |
+                    (bytes[j + 2] & 0xff) << 8 |
+                    (bytes[j + 1] & 0xff);
+         }
+      }
+      else{
+         // conversion en bloque de cualquier otro formato
+         datos = buffer.getRGB(0, 0, columnas, filas, null, 0, columnas);
+      }
+
+      // se crea la imagen sin copiar el array
+      return new Imagen(columnas, filas, datos);
+   }
+
+   /**
+    * construye un buffer de tipo ARGB que usa directamente el
+    * array de colores de la imagen, sin copia. Los cambios en el
+    * buffer se reflejan en la imagen y viceversa
+    *
+    * @param imagen imagen de la que se toman los datos
+    * @return buffer construido
+    */
+   static BufferedImage convertirImagenBuffer(Imagen imagen) {
+      DataBufferInt datosRaster = new DataBufferInt(imagen.obtenerDatos(),
+              imagen.obtenerNumeroPixels());
+      DirectColorModel modelo = (DirectColorModel) ColorModel.getRGBdefault();
+
+      // raster empaquetado con las mascaras del modelo ARGB
+      WritableRaster raster = Raster.createPackedRaster(datosRaster,
+              imagen.obtenerColumnas(), imagen.obtenerFilas(),
+              imagen.obtenerColumnas(), modelo.getMasks(), null);
+
+      // se devuelve el buffer
+      return new BufferedImage(modelo, raster, false, null);
    }
 
    /**
@@ -8,5 +8,16 @@
  * c) RGBA: clase con metodos estaticos para manipulacion de
  * componentes de color
  * d) Utilidades: interfaz con metodos estaticos de uso general
+ * e) AlmacenPixels: almacen por columnas de las componentes de
+ * todos los pixels de una imagen, con vista de solo lectura
+ * f) TablaColores: tabla de tipo primitivo que numera los
+ * colores distintos de una imagen
+ * g) NucleoDistancias: calculo escalar del centro mas cercano a
+ * cada pixel
+ * h) NucleoDistanciasVectorial: calculo vectorial del centro mas
+ * cercano; requiere el modulo jdk.incubator.vector (opcion
+ * --add-modules jdk.incubator.vector, incluida en la configuracion
+ * del compilador del proyecto). Para compilar es necesario; al
+ * ejecutar, si no esta disponible, se usa el escalar
  */
 package imagen;
\ No newline at end of file
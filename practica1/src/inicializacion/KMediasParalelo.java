@@ -0,0 +1,531 @@
+package inicializacion;
+
+import imagen.AlmacenPixels;
+import imagen.Pixel;
+import kmedias.KMedias;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.SplittableRandom;
+import java.util.concurrent.ForkJoinPool;
+import java.util.function.Supplier;
+import java.util.stream.IntStream;
+
+/**
+ * inicializacion k-medias|| (k-medias++ escalable): se parte de un
+ * pixel elegido al azar y en cada ronda se elige cada pixel de forma
+ * independiente con probabilidad proporcional a su distancia
+ * cuadratica al candidato mas cercano, obteniendo varios candidatos
+ * por ronda. Las rondas recorren el almacen por bloques, en el pool
+ * de hilos de la ejecucion si lo hay. Por ultimo, los candidatos,
+ * ponderados por el numero de pixels que representan, se agrupan en
+ * k centros con k-medias++ seguido de unas iteraciones de Lloyd.
+ * Cada bloque usa su propio generador, obtenido del de la ejecucion
+ * antes de cada ronda, por lo que el resultado no depende del numero
+ * de hilos
+ */
+public class KMediasParalelo implements EstrategiaInicializacion {
+   /**
+    * numero de rondas de muestreo
+    */
+   private static final int RONDAS = 2;
+
+   /**
+    * numero esperado de candidatos elegidos en cada ronda,
+    * como multiplo de k
+    */
+   private static final int SOBREMUESTREO = 2;
+
+   /**
+    * numero maximo de iteraciones al agrupar los candidatos
+    */
+   private static final int ITERACIONES_AGRUPAMIENTO = 10;
+
+   /**
+    * numero de pixels de cada bloque
+    */
+   private static final int TAMANO_BLOQUE = 16384;
+
+   /**
+    * almacen de pixels de la ejecucion
+    */
+   private AlmacenPixels almacen;
+
+   /**
+    * distancia cuadratica de cada pixel a su candidato mas cercano
+    */
+   private double[] distancias;
+
+   /**
+    * posicion del candidato mas cercano a cada pixel
+    */
+   private int[] cercanos;
+
+   /**
+    * candidato mas cercano a cada pixel entre los de la ultima
+    * ronda; cada bloque usa solo sus posiciones
+    */
+   private int[] masCercanos;
+
+   /**
+    * pixels elegidos como candidatos, en orden de eleccion
+    */
+   private int[] candidatos;
+
+   /**
+    * numero de candidatos elegidos
+    */
+   private int numeroCandidatos;
+
+   /**
+    * seleccion de centroides con k-medias||; las rondas se
+    * reparten en el pool de hilos
+    * FUNCIONAL
+    *
+    * @param kmedias objeto a inicializar
+    * @return lista de pixels seleccionados como
+    * centroides
+    */
+   @Override
+   public List<Pixel> seleccionar(KMedias kmedias) {
+      try {
+         SplittableRandom generador = kmedias.obtenerGenerador();
+         ForkJoinPool pool = kmedias.obtenerPool();
+         double coste = preparar(kmedias);
+         int bloques = obtenerNumeroBloques();
+         double sobremuestreo = SOBREMUESTREO * kmedias.obtenerK();
+
+         for (int ronda = 0; ronda < RONDAS && coste > 0; ronda++) {
+            // se elige cada pixel con probabilidad proporcional a su
+            // distancia; cada bloque con su generador
+            SplittableRandom[] generadores = dividir(generador, bloques);
+            double total = coste;
+            int[] elegidos = ejecutarEnPool(pool, () ->
+                    recorrerBloques(pool, bloques).
+                            mapToObj(bloque -> muestrearBloque(bloque,
+                                    generadores[bloque], sobremuestreo, total)).
+                            flatMapToInt(Arrays::stream).toArray());
+            int primero = agregarCandidatos(elegidos);
+
+            // si la ronda no ha elegido candidatos no hay distancias
+            // que actualizar
+            if (elegidos.length == 0) {
+               continue;
+            }
+
+            // se actualizan las distancias con los nuevos candidatos
+            double[] costes = ejecutarEnPool(pool, () ->
+                    recorrerBloques(pool, bloques).
+                            mapToDouble(bloque ->
+                                    actualizarBloque(bloque, primero)).
+                            toArray());
+            coste = sumar(costes);
+         }
+
+         // se agrupan los candidatos en k centros
+         return agruparCandidatos(kmedias.obtenerK(), generador);
+      } finally {
+         // se liberan los arrays de la seleccion, que
+         // ocupan memoria proporcional a la imagen
+         liberar();
+      }
+   }
+
+   /**
+    * seleccion de centroides con k-medias||, recorriendo los
+    * bloques en el hilo actual y de forma imperativa
+    *
+    * @param kmedias objeto a inicializar
+    * @return lista de pixels seleccionados como
+    * centroides
+    */
+   public List<Pixel> seleccionarImperativo(KMedias kmedias) {
+      try {
+         SplittableRandom generador = kmedias.obtenerGenerador();
+         double coste = preparar(kmedias);
+         int bloques = obtenerNumeroBloques();
+         double sobremuestreo = SOBREMUESTREO * kmedias.obtenerK();
+
+         for (int ronda = 0; ronda < RONDAS && coste > 0; ronda++) {
+            // se elige cada pixel con probabilidad proporcional a su
+            // distancia; cada bloque con su generador
+            SplittableRandom[] generadores = dividir(generador, bloques);
+            int[][] elegidos = new int[bloques][];
+            for (int bloque = 0; bloque < bloques; bloque++) {
+               elegidos[bloque] = muestrearBloque(bloque, generadores[bloque],
+                       sobremuestreo, coste);
+            }
+            int primero = numeroCandidatos;
+            for (int bloque = 0; bloque < bloques; bloque++) {
+               agregarCandidatos(elegidos[bloque]);
+            }
+
+            // si la ronda no ha elegido candidatos no hay distancias
+            // que actualizar
+            if (numeroCandidatos == primero) {
+               continue;
+            }
+
+            // se actualizan las distancias con los nuevos candidatos
+            double[] costes = new double[bloques];
+            for (int bloque = 0; bloque < bloques; bloque++) {
+               costes[bloque] = actualizarBloque(bloque, primero);
+            }
+            coste = sumar(costes);
+         }
+
+         // se agrupan los candidatos en k centros
+         return agruparCandidatos(kmedias.obtenerK(), generador);
+      } finally {
+         // se liberan los arrays de la seleccion, que
+         // ocupan memoria proporcional a la imagen
+         liberar();
+      }
+   }
+
+   /**
+    * elige el primer candidato al azar (cada pixel de la imagen
+    * con la misma probabilidad) y calcula las distancias de todos
+    * los pixels a el
+    *
+    * @param kmedias objeto a inicializar
+    * @return coste inicial: suma ponderada de las distancias
+    */
+   private double preparar(KMedias kmedias) {
+      almacen = kmedias.obtenerAlmacen();
+      int numero = almacen.obtenerNumeroPixels();
+      distancias = new double[numero];
+      cercanos = new int[numero];
+      masCercanos = new int[numero];
+      candidatos = new int[16];
+      numeroCandidatos = 0;
+
+      // primer candidato
+      candidatos[numeroCandidatos++] = almacen.localizar(
+              kmedias.obtenerGenerador().nextLong(almacen.obtenerPesoTotal()));
+
+      // distancias al primer candidato
+      Arrays.fill(distancias, Double.POSITIVE_INFINITY);
+      double[] costes = new double[obtenerNumeroBloques()];
+      for (int bloque = 0; bloque < costes.length; bloque++) {
+         costes[bloque] = actualizarBloque(bloque, 0);
+      }
+      return sumar(costes);
+   }
+
+   /**
+    * libera los arrays de la seleccion: el inicializador se
+    * conserva durante toda la ejecucion del algoritmo
+    */
+   private void liberar() {
+      almacen = null;
+      distancias = null;
+      cercanos = null;
+      masCercanos = null;
+      candidatos = null;
+      numeroCandidatos = 0;
+   }
+
+   /**
+    * elige los pixels de un bloque que pasan a ser candidatos:
+    * cada uno con probabilidad sobremuestreo * peso * distancia /
+    * coste
+    *
+    * @param bloque        numero de bloque
+    * @param generador     generador del bloque
+    * @param sobremuestreo numero esperado de candidatos elegidos
+    * @param coste         suma ponderada de las distancias
+    * @return posiciones de los pixels elegidos, en orden
+    */
+   private int[] muestrearBloque(int bloque, SplittableRandom generador,
+                                 double sobremuestreo, double coste) {
+      int inicio = bloque * TAMANO_BLOQUE;
+      int fin = Math.min(inicio + TAMANO_BLOQUE, almacen.obtenerNumeroPixels());
+      int[] elegidos = new int[16];
+      int numero = 0;
+      for (int i = inicio; i < fin; i++) {
+         double probabilidad = sobremuestreo * almacen.obtenerPeso(i) *
+                 distancias[i] / coste;
+         if (generador.nextDouble() < probabilidad) {
+            if (numero == elegidos.length) {
+               elegidos = Arrays.copyOf(elegidos, numero << 1);
+            }
+            elegidos[numero++] = i;
+         }
+      }
+      return Arrays.copyOf(elegidos, numero);
+   }
+
+   /**
+    * actualiza la distancia y el candidato mas cercano de los
+    * pixels de un bloque considerando los candidatos a partir de
+    * una posicion. En caso de empate se conserva el anterior
+    *
+    * @param bloque  numero de bloque
+    * @param primero posicion del primer candidato a considerar
+    * @return suma ponderada de las distancias del bloque
+    */
+   private double actualizarBloque(int bloque, int primero) {
+      int inicio = bloque * TAMANO_BLOQUE;
+      int fin = Math.min(inicio + TAMANO_BLOQUE, almacen.obtenerNumeroPixels());
+
+      // componentes de los nuevos candidatos
+      int nuevos = numeroCandidatos - primero;
+      double[] rojos = new double[nuevos];
+      double[] verdes = new double[nuevos];
+      double[] azules = new double[nuevos];
+      for (int j = 0; j < nuevos; j++) {
+         rojos[j] = almacen.obtenerRojo(candidatos[primero + j]);
+         verdes[j] = almacen.obtenerVerde(candidatos[primero + j]);
+         azules[j] = almacen.obtenerAzul(candidatos[primero + j]);
+      }
+
+      // se busca el mas cercano entre los nuevos y se compara
+      // con la distancia anterior; sin nuevos candidatos solo se
+      // suman las distancias
+      if (nuevos > 0) {
+         almacen.obtenerMasCercanos(inicio, fin, rojos, verdes, azules,
+                 masCercanos);
+      }
+      double coste = 0;
+      for (int i = inicio; i < fin; i++) {
+         if (nuevos > 0) {
+            int j = masCercanos[i];
+            double distancia = almacen.distanciaCuadratica(i, rojos[j],
+                    verdes[j], azules[j]);
+            if (distancia < distancias[i]) {
+               distancias[i] = distancia;
+               cercanos[i] = primero + j;
+            }
+         }
+         coste += almacen.obtenerPeso(i) * distancias[i];
+      }
+      return coste;
+   }
+
+   /**
+    * agrupa los candidatos en k centros. Cada candidato pesa
+    * tantos pixels como tiene asignados; se eligen k candidatos
+    * con k-medias++ y se refinan con iteraciones de Lloyd
+    * ponderadas
+    *
+    * @param k         numero de centros
+    * @param generador generador de numeros aleatorios
+    * @return lista de centros
+    */
+   private List<Pixel> agruparCandidatos(int k, SplittableRandom generador) {
+      // peso de cada candidato
+      double[] pesos = new double[numeroCandidatos];
+      for (int i = 0; i < cercanos.length; i++) {
+         pesos[cercanos[i]] += almacen.obtenerPeso(i);
+      }
+
+      // componentes de los candidatos
+      double[] rojos = new double[numeroCandidatos];
+      double[] verdes = new double[numeroCandidatos];
+      double[] azules = new double[numeroCandidatos];
+      for (int j = 0; j < numeroCandidatos; j++) {
+         rojos[j] = almacen.obtenerRojo(candidatos[j]);
+         verdes[j] = almacen.obtenerVerde(candidatos[j]);
+         azules[j] = almacen.obtenerAzul(candidatos[j]);
+      }
+
+      // se eligen k candidatos con k-medias++: cada uno con
+      // probabilidad proporcional a peso * distancia a los ya
+      // elegidos; si todas las distancias son nulas, segun el
+      // peso (puede repetirse un candidato si hay menos de k)
+      double[] centrosRojo = new double[k];
+      double[] centrosVerde = new double[k];
+      double[] centrosAzul = new double[k];
+      double[] minimas = new double[numeroCandidatos];
+      Arrays.fill(minimas, Double.POSITIVE_INFINITY);
+      double[] probabilidades = pesos.clone();
+      for (int c = 0; c < k; c++) {
+         int elegido = elegirPonderado(probabilidades, generador);
+         centrosRojo[c] = rojos[elegido];
+         centrosVerde[c] = verdes[elegido];
+         centrosAzul[c] = azules[elegido];
+
+         // se actualizan las distancias y las probabilidades
+         double total = 0;
+         for (int j = 0; j < numeroCandidatos; j++) {
+            double dr = rojos[j] - centrosRojo[c];
+            double dv = verdes[j] - centrosVerde[c];
+            double da = azules[j] - centrosAzul[c];
+            minimas[j] = Math.min(minimas[j], dr * dr + dv * dv + da * da);
+            probabilidades[j] = pesos[j] * minimas[j];
+            total += probabilidades[j];
+         }
+         if (total == 0) {
+            probabilidades = pesos.clone();
+         }
+      }
+
+      // iteraciones de Lloyd ponderadas sobre los candidatos
+      int[] grupos = new int[numeroCandidatos];
+      Arrays.fill(grupos, -1);
+      boolean cambios = true;
+      for (int iteracion = 0; iteracion < ITERACIONES_AGRUPAMIENTO && cambios;
+           iteracion++) {
+         cambios = false;
+         double[] sumaRojo = new double[k];
+         double[] sumaVerde = new double[k];
+         double[] sumaAzul = new double[k];
+         double[] sumaPesos = new double[k];
+         for (int j = 0; j < numeroCandidatos; j++) {
+            int grupo = 0;
+            double minima = Double.POSITIVE_INFINITY;
+            for (int c = 0; c < k; c++) {
+               double dr = rojos[j] - centrosRojo[c];
+               double dv = verdes[j] - centrosVerde[c];
+               double da = azules[j] - centrosAzul[c];
+               double distancia = dr * dr + dv * dv + da * da;
+               if (minima > distancia) {
+                  minima = distancia;
+                  grupo = c;
+               }
+            }
+            cambios = cambios || grupos[j] != grupo;
+            grupos[j] = grupo;
+            sumaRojo[grupo] += pesos[j] * rojos[j];
+            sumaVerde[grupo] += pesos[j] * verdes[j];
+            sumaAzul[grupo] += pesos[j] * azules[j];
+            sumaPesos[grupo] += pesos[j];
+         }
+
+         // los grupos vacios conservan su centro
+         for (int c = 0; c < k; c++) {
+            if (sumaPesos[c] > 0) {
+               centrosRojo[c] = sumaRojo[c] / sumaPesos[c];
+               centrosVerde[c] = sumaVerde[c] / sumaPesos[c];
+               centrosAzul[c] = sumaAzul[c] / sumaPesos[c];
+            }
+         }
+      }
+
+      // se crean los pixels de los centros
+      List<Pixel> centros = new ArrayList<>(k);
+      for (int c = 0; c < k; c++) {
+         centros.add(new Pixel(centrosRojo[c], centrosVerde[c], centrosAzul[c]));
+      }
+      return centros;
+   }
+
+   /**
+    * elige una posicion al azar con probabilidad proporcional
+    * a los valores dados
+    *
+    * @param valores   valores no negativos, no todos nulos
+    * @param generador generador de numeros aleatorios
+    * @return posicion elegida
+    */
+   private static int elegirPonderado(double[] valores,
+                                      SplittableRandom generador) {
+      double total = 0;
+      for (double valor : valores) {
+         total += valor;
+      }
+      double objetivo = generador.nextDouble() * total;
+      double acumulado = 0;
+      int ultimo = 0;
+      for (int j = 0; j < valores.length; j++) {
+         if (valores[j] > 0) {
+            acumulado += valores[j];
+            ultimo = j;
+            if (acumulado > objetivo) {
+               return j;
+            }
+         }
+      }
+
+      // por redondeo: ultima posicion con valor positivo
+      return ultimo;
+   }
+
+   /**
+    * anota nuevos candidatos a continuacion de los existentes
+    *
+    * @param elegidos posiciones de los pixels elegidos
+    * @return posicion del primer candidato anotado
+    */
+   private int agregarCandidatos(int[] elegidos) {
+      int primero = numeroCandidatos;
+      if (numeroCandidatos + elegidos.length > candidatos.length) {
+         candidatos = Arrays.copyOf(candidatos, Math.max(candidatos.length << 1,
+                 numeroCandidatos + elegidos.length));
+      }
+      System.arraycopy(elegidos, 0, candidatos, numeroCandidatos, elegidos.length);
+      numeroCandidatos += elegidos.length;
+      return primero;
+   }
+
+   /**
+    * obtiene un generador independiente para cada bloque
+    *
+    * @param generador generador de la ejecucion
+    * @param bloques   numero de bloques
+    * @return generadores de los bloques
+    */
+   private static SplittableRandom[] dividir(SplittableRandom generador,
+                                             int bloques) {
+      SplittableRandom[] generadores = new SplittableRandom[bloques];
+      for (int bloque = 0; bloque < bloques; bloque++) {
+         generadores[bloque] = generador.split();
+      }
+      return generadores;
+   }
+
+   /**
+    * calcula el numero de bloques en que se divide el almacen
+    *
+    * @return numero de bloques
+    */
+   private int obtenerNumeroBloques() {
+      return (almacen.obtenerNumeroPixels() + TAMANO_BLOQUE - 1) / TAMANO_BLOQUE;
+   }
+
+   /**
+    * suma los costes de los bloques, siempre en el mismo orden
+    *
+    * @param costes costes de cada bloque
+    * @return suma de los costes
+    */
+   private static double sumar(double[] costes) {
+      double suma = 0;
+      for (double coste : costes) {
+         suma += coste;
+      }
+      return suma;
+   }
+
+   /**
+    * crea el flujo de numeros de bloque: paralelo si hay pool
+    * de hilos y secuencial en otro caso
+    *
+    * @param pool    pool de hilos o null
+    * @param bloques numero de bloques
+    * @return flujo de numeros de bloque
+    */
+   private static IntStream recorrerBloques(ForkJoinPool pool, int bloques) {
+      IntStream flujo = IntStream.range(0, bloques);
+      return pool == null ? flujo : flujo.parallel();
+   }
+
+   /**
+    * realiza un calculo con flujos paralelos en el pool de hilos
+    * de la ejecucion o, si no lo hay, en el hilo actual
+    *
+    * @param pool    pool de hilos o null
+    * @param calculo calculo a realizar
+    * @param <T>     tipo del resultado
+    * @return resultado del calculo
+    */
+   private static <T> T ejecutarEnPool(ForkJoinPool pool,
+                                       Supplier<T> calculo) {
+      if (pool == null) {
+         return calculo.get();
+      }
+      return pool.submit(calculo::get).join();
+   }
+}
@@ -21,5 +21,23 @@ public enum ModoInicializacion {
     * seleccion de centroides para seleccionar
     * mas centros de los colores mas presentes
     */
-   MUESTREO_ESTRATIFICADO
+   MUESTREO_ESTRATIFICADO,
+
+   /**
+    * seleccion de centroides alejados entre si con
+    * k-medias|| (k-medias++ en paralelo)
+    */
+   KMEDIAS_PARALELO,
+
+   /**
+    * paleta obtenida por corte de la mediana del
+    * histograma de colores
+    */
+   CORTE_MEDIANA,
+
+   /**
+    * paleta obtenida con un arbol octal en una
+    * unica pasada por los pixels
+    */
+   ARBOL_OCTAL
 }
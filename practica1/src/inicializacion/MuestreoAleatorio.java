@@ -1,17 +1,24 @@
 package inicializacion;
 
+import imagen.AlmacenPixels;
 import imagen.Pixel;
 import kmedias.KMedias;
 
 import java.util.ArrayList;
-import java.util.Collections;
+import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
+import java.util.SplittableRandom;
 import java.util.stream.Collectors;
-import java.util.stream.IntStream;
+import java.util.stream.LongStream;
 
 /**
  * clase para realizar la inicializacion de
- * centroides mediante muestreo aleatorio
+ * centroides mediante muestreo aleatorio. Los pixels se
+ * eligen sin repeticion con un barajado parcial de
+ * Fisher-Yates sobre las posiciones de la imagen: solo se
+ * anotan las posiciones intercambiadas, por lo que el coste
+ * en tiempo y memoria depende de k y no del numero de pixels
  */
 public class MuestreoAleatorio implements EstrategiaInicializacion {
 
@@ -28,17 +35,23 @@ public class MuestreoAleatorio implements EstrategiaInicializacion {
    public List<Pixel> seleccionar(KMedias kmedias) {
 
       // obtener los pixels de donde se muestrea
-      List<Pixel> pixels = kmedias.obtenerPixels();
+      AlmacenPixels almacen = kmedias.obtenerAlmacen();
 
-      List<Integer> indices = IntStream.range(0, pixels.size()).
-                      boxed().collect(Collectors.toList());
+      // se numeran los pixels de la imagen: si el almacen es
+      // un histograma, cada color se localiza por su peso
+      long total = almacen.obtenerPesoTotal();
+      SplittableRandom generador = kmedias.obtenerGenerador();
 
-      // se baraja el array de indices
-      Collections.shuffle(indices);
+      // posiciones intercambiadas en el barajado parcial
+      Map<Long, Long> intercambios = new HashMap<>();
 
-      return indices.stream().map(indice ->
-              pixels.get(indice)).limit(kmedias.obtenerK()).
-              collect(Collectors.toList());
+      // el elemento i del barajado se intercambia con uno
+      // posterior elegido al azar
+      return LongStream.range(0, Math.min(kmedias.obtenerK(), total))
+              .map(i -> intercambiar(intercambios, i,
+                      i + generador.nextLong(total - i)))
+              .mapToObj(indice -> almacen.obtenerPixel(almacen.localizar(indice)))
+              .collect(Collectors.toList());
 
    }
 
@@ -55,25 +68,41 @@ public class MuestreoAleatorio implements EstrategiaInicializacion {
       ArrayList<Pixel> seleccionados = new ArrayList<>();
 
       // obtener los pixels de donde se muestrea
-      List<Pixel> pixels = kmedias.obtenerPixels();
-
-      // generar un array de indices desde 0 hasta
-      // el numero de pixels - 1
-      ArrayList<Integer> indices = new ArrayList<>();
-      for(int i=0; i < pixels.size(); i++){
-         indices.add(i);
-      }
-
-      // se baraja el array de indices
-      Collections.shuffle(indices);
-
-      // se seleccionan los k primeros elementos de
-      // el array barajado de indices
-      for(int i=0; i < kmedias.obtenerK(); i++){
-         seleccionados.add(pixels.get(indices.get(i)));
+      AlmacenPixels almacen = kmedias.obtenerAlmacen();
+      long total = almacen.obtenerPesoTotal();
+      SplittableRandom generador = kmedias.obtenerGenerador();
+
+      // posiciones intercambiadas en el barajado parcial
+      Map<Long, Long> intercambios = new HashMap<>();
+
+      // se barajan solo los k primeros elementos de la
+      // secuencia de indices 0, 1, ..., total - 1
+      for(long i=0; i < kmedias.obtenerK() && i < total; i++){
+         long indice = intercambiar(intercambios, i,
+                 i + generador.nextLong(total - i));
+         seleccionados.add(almacen.obtenerPixel(almacen.localizar(indice)));
       }
 
       // se devuelve la lista de puntos seleccionados
       return seleccionados;
    }
+
+   /**
+    * intercambia dos elementos de la secuencia de indices
+    * barajada. Las posiciones no anotadas conservan su propio
+    * indice
+    *
+    * @param intercambios valores de las posiciones modificadas
+    * @param i            posicion que se fija
+    * @param j            posicion elegida, no anterior a i
+    * @return indice que queda en la posicion i
+    */
+   private static long intercambiar(Map<Long, Long> intercambios, long i,
+                                    long j) {
+      long valorI = intercambios.getOrDefault(i, i);
+      long valorJ = intercambios.getOrDefault(j, j);
+      intercambios.put(j, valorI);
+      intercambios.remove(i);
+      return valorJ;
+   }
 }
@@ -1,359 +1,310 @@
 package inicializacion;
 
+import imagen.AlmacenPixels;
 import imagen.Pixel;
 import kmedias.KMedias;
-import imagen.Utilidades;
 
 import java.util.*;
-import java.util.function.Function;
 import java.util.stream.Collectors;
 import java.util.stream.IntStream;
 
 /**
  * clase para aportar la seleccion de centroides
- * mediante muestreo estratificado
+ * mediante muestreo estratificado. El rango de indices de
+ * color se divide en k tramos; cada centroide se obtiene
+ * eligiendo un tramo con probabilidad proporcional a su numero
+ * de pixels (con un SelectorPonderado, en tiempo constante) y
+ * un pixel al azar dentro del tramo. Los tramos no
+ * se materializan en listas: se cuentan sus pixels en una
+ * pasada por el almacen y los pixels elegidos se localizan por
+ * su posicion dentro del tramo en otra pasada
  */
 public class MuestreoEstratificado implements EstrategiaInicializacion {
 
-    /**
-     * seleccion de centroides con muestreo estratificado.
-     * Requiere determinar el numero de pixels asociado a
-     * cada estrato y seleccionar posteriormente
-     * FUNCIONAL
-     * @param kmedias objeto a inicializar
-     * @return lista de pixels seleccionados como
-     * centroides
-     */
-    @Override
-    public List<Pixel> seleccionar(KMedias kmedias) {
-        // se obtiene el valor de k
-        int k = kmedias.obtenerK();
-
-        // se obtienen los pixels de la imagen
-        List<Pixel> pixels = kmedias.obtenerPixels();
-
-        // se crea la lista resultado
-        List<Pixel> seleccionados;
-
-        // agrupar los pixels de acuerdo a sus colores,
-        // en los intervalos considerados
-        Map<Integer, List<Pixel>> porIntervalo =
-                agruparPixelsIntervalos(k, pixels);
-
-        // se obtiene la distribucion de probabilidad
-        // asociada al agrupamiento
-        List<Double> distribucion = obtenerDistribucion(porIntervalo,
-                pixels.size());
-
-        // se realiza la seleccion
-        seleccionados = muestrear(porIntervalo, distribucion, k);
-
-        // se devuelve la lista de centroides seleccionados
-        return seleccionados;
-    }
-
    /**
     * seleccion de centroides con muestreo estratificado.
     * Requiere determinar el numero de pixels asociado a
     * cada estrato y seleccionar posteriormente
-    * de forma imperativa
+    * FUNCIONAL
     * @param kmedias objeto a inicializar
     * @return lista de pixels seleccionados como
     * centroides
     */
-
-   public List<Pixel> seleccionarImperativo(KMedias kmedias) {
+   @Override
+   public List<Pixel> seleccionar(KMedias kmedias) {
       // se obtiene el valor de k
       int k = kmedias.obtenerK();
 
-      // se obtienen los pixels de la imagen
-      List<Pixel> pixels = kmedias.obtenerPixels();
+      // se obtiene el almacen de pixels de la imagen
+      AlmacenPixels almacen = kmedias.obtenerAlmacen();
 
-      // se crea la lista resultado
-      List<Pixel> seleccionados;
+      // colores minimo y maximo en una unica pasada
+      IntSummaryStatistics extremos = IntStream.range(0,
+                      almacen.obtenerNumeroPixels())
+              .map(almacen::obtenerIndice).summaryStatistics();
+      Tramos tramos = new Tramos(k, extremos.getMin(), extremos.getMax());
 
-      // agrupar los pixels de acuerdo a sus colores,
-      // en los intervalos considerados
-      Map<Integer, List<Pixel>> porIntervalo =
-              agruparPixelsIntervalos(k, pixels);
+      // se cuentan los pixels de cada tramo
+      int[] recuentos = IntStream.range(0, almacen.obtenerNumeroPixels())
+              .collect(() -> new int[k],
+                      (parcial, i) -> tramos.contar(almacen, i, parcial),
+                      (parcial, otro) -> IntStream.range(0, k)
+                              .forEach(tramo -> parcial[tramo] += otro[tramo]));
 
-      // se obtiene la distribucion de probabilidad
-      // asociada al agrupamiento
-      List<Double> distribucion = obtenerDistribucion(porIntervalo,
-              pixels.size());
+      // se crea el selector de tramos segun su numero de pixels
+      SelectorPonderado selector = new SelectorPonderado(recuentos);
 
       // se realiza la seleccion
-      seleccionados = muestrear(porIntervalo, distribucion, k);
-
-      // se devuelve la lista de centroides seleccionados
-      return seleccionados;
+      return localizar(almacen, tramos, muestrear(recuentos,
+              selector, k, kmedias.obtenerGenerador()));
    }
 
    /**
-    * metodo de agrupamiento de los pixels por intervalos
-    * de color
-    * FUNCIONAL
-    * @param k      numero de tramos a considerar
-    * @param pixels lista de pixels a agrupar
-    * @return mapa con agrupamientos de pixels por
-    * intervalos
-    */
-   private Map<Integer, List<Pixel>> agruparPixelsIntervalos(int k,
-                                                             List<Pixel> pixels) {
-
-      // determinar colores minimo y maximo del rango de colores
-      List<Integer> minMax = Utilidades.obtenerMinimoMaximo(pixels);
-
-      // se calcula el incremento para fijar las marcas
-      double incremento = (minMax.get(1) - minMax.get(0)) / ((k) * 1.0);
-
-
-      List<List<Pixel>> listas= IntStream.range(0,k).boxed()
-              .map(i -> minMax.get(0) + incremento * i)
-              .map(valor -> Utilidades.obtenerPuntosIntervalo
-                      (pixels, valor, valor + incremento))
-              .collect(Collectors.toList());
-
-
-      return IntStream.range(0,k).boxed().
-              collect(Collectors.toMap(i -> i, i -> listas.get(i)));
-
-   }
-   /**
-    * metodo de agrupamiento de los pixels por intervalos
-    * de color de forma imperativa
-    *
-    * @param k      numero de tramos a considerar
-    * @param pixels lista de pixels a agrupar
-    * @return mapa con agrupamientos de pixels por
-    * intervalos
+    * seleccion de centroides con muestreo estratificado.
+    * Requiere determinar el numero de pixels asociado a
+    * cada estrato y seleccionar posteriormente
+    * de forma imperativa
+    * @param kmedias objeto a inicializar
+    * @return lista de pixels seleccionados como
+    * centroides
     */
-   private Map<Integer, List<Pixel>> agruparPixelsIntervalosImperativo(int k,
-                                       List<Pixel> pixels) {
-      // crear el diccionario a devolver
-      Map<Integer, List<Pixel>> porIntervalo = new HashMap<>();
-
-      // determinar colores minimo y maximo del rango de colores
-      List<Integer> minMax = Utilidades.obtenerMinimoMaximo(pixels);
-
-      // se calcula el incremento para fijar las marcas
-      double incremento = (minMax.get(1) - minMax.get(0)) / ((k) * 1.0);
-
-      // se van obteniendo los pixels en cada intervalo
-      for(int i=0; i < k; i++){
-         // obtener el color de inicio del tramo que corresponda
-         double inicio = minMax.get(0) + incremento*i;
-         double fin = inicio + incremento;
+   public List<Pixel> seleccionarImperativo(KMedias kmedias) {
+      // se obtiene el valor de k
+      int k = kmedias.obtenerK();
 
-         // se obtienen los pixels con indices de colores
-         // comprendidos en el intervalo
-         List<Pixel> enIntervalo =
-                 Utilidades.obtenerPuntosIntervalo(pixels, inicio, fin);
+      // se obtiene el almacen de pixels de la imagen
+      AlmacenPixels almacen = kmedias.obtenerAlmacen();
 
-         // agrego la entrada al diccionario
-         porIntervalo.put(i, enIntervalo);
+      // colores minimo y maximo en una unica pasada
+      int minimo = almacen.obtenerIndice(0);
+      int maximo = minimo;
+      for(int i=1; i < almacen.obtenerNumeroPixels(); i++){
+         minimo = Math.min(minimo, almacen.obtenerIndice(i));
+         maximo = Math.max(maximo, almacen.obtenerIndice(i));
       }
+      Tramos tramos = new Tramos(k, minimo, maximo);
 
-      // se devuelve el map
-      return porIntervalo;
-   }
-
-   /**
-    * obtiene una distribucion de probabilidad en funcion
-    * del numero de puntos de cada intervalo.
-    * FUNCIONAL
-    * @param porIntervalo clasificacion de pixels por
-    *                     intervalos
-    * @param numeroPixels numero total de pixels
-    * @return distribucion de probabilidad para cada
-    * intervalo a considerar
-    */
-   private List<Double> obtenerDistribucion(
-           Map<Integer, List<Pixel>> porIntervalo, int numeroPixels) {
-      // se crea la coleccion a devolver
-      List<Double> distribucion = new ArrayList<>();
-
-      // se recorren los agrupamientos para generar los
-      // valores de la distribucion
-      porIntervalo.values().stream()
-              .map(lista -> lista.size() / (numeroPixels*1.0))
-              .reduce(0.0, (acumulado, valor) -> {
-                            acumulado += valor;
-                            distribucion.add(acumulado);
-                            System.out.println(" " + acumulado);
-
-                            return acumulado;
-                      }
-                      );
-
-      return distribucion;
-   }
-   /**
-    * obtiene una distribucion de probabilidad en funcion
-    * del numero de puntos de cada intervalo.
-    * de forma imperativa
-    * @param porIntervalo clasificacion de pixels por intervalos
-    * @param numeroPixels numero total de pixels
-    * @return distribucion de probabilidad para cada
-    * intervalo a considerar
-    */
-   private List<Double> obtenerDistribucionImperativa(
-           Map<Integer, List<Pixel>> porIntervalo, int numeroPixels) {
-      // se crea la coleccion a devolver
-      List<Double> distribucion = new ArrayList<>();
-
-      // se crean variables auxiliares
-      double acumulado = 0;
-      double valor;
-
-      // se recorren los agrupamientos para generar los
-      // valores de la distribucion
-      for(int i=0; i < porIntervalo.size(); i++) {
-         // se calcular el valor de probabilidad que
-         // corresponde al grupo
-         valor = porIntervalo.get(i).size() / (numeroPixels*1.0);
-
-         // incremento acumulado
-         acumulado += valor;
-
-         // almaceno el valor acumulado
-         distribucion.add(acumulado);
-         System.out.println(" " + acumulado);
+      // se cuentan los pixels de cada tramo
+      int[] recuentos = new int[k];
+      for(int i=0; i < almacen.obtenerNumeroPixels(); i++){
+         tramos.contar(almacen, i, recuentos);
       }
 
-      // se devuelve la distribucion
-      return distribucion;
+      // se crea el selector de tramos segun su numero de pixels
+      SelectorPonderado selector = new SelectorPonderado(recuentos);
+
+      // se realiza la seleccion
+      return localizar(almacen, tramos, muestrearImperativo(recuentos,
+              selector, k, kmedias.obtenerGenerador()));
    }
 
    /**
-    * se realiza el muestreo usando los pixels en la
-    * distribucion y las probabilidades asociadas
+    * se realiza el muestreo: para cada centroide se elige
+    * un tramo y la posicion de un pixel dentro del tramo
     * FUNCIONAL
-    * @param porIntervalo agrupamiento de pixels por
-    *                     intervalo
-    * @param distribucion distribucion de probabilidad
-    *                     de cada intervalo
-    * @param k            numero de pixels a seleccionar
-    * @return lista de pixels seleccionados como
-    * centroides
+    * @param recuentos numero de pixels de cada tramo
+    * @param selector  selector de tramos
+    * @param k         numero de pixels a seleccionar
+    * @param generador generador de numeros aleatorios
+    * @return para cada centroide, tramo y posicion en el tramo
     */
-   private List<Pixel> muestrear(
-           Map<Integer, List<Pixel>> porIntervalo,
-           List<Double> distribucion, int k) {
-
-      // se crea el generador de numeros aleatorios
-      Random generador = new Random();
-
+   private List<int[]> muestrear(int[] recuentos, SelectorPonderado selector,
+                                 int k, SplittableRandom generador) {
       return IntStream.range(0,k).boxed()
-              .map(numero -> generador.nextDouble())
-              .map(semilla -> obtenerTramo(semilla,distribucion))
-              .map(indice -> seleccionarPixelTramo(porIntervalo.get(indice)))
+              .map(numero -> selector.seleccionar(generador))
+              .map(tramo -> new int[]{tramo,
+                      generador.nextInt(recuentos[tramo])})
               .collect(Collectors.toList());
-
    }
 
    /**
-    * se realiza el muestreo usando los pixels en la
-    * distribucion y las probabilidades asociadas
-    * de forma imperativa
-    * @param porIntervalo agrupamiento de pixels por intervalo
-    * @param distribucion distribucion de probabilidad de cada intervalo
-    * @param k            numero de pixels a seleccionar
-    * @return lista de pixels seleccionados como centroides
+    * se realiza el muestreo: para cada centroide se elige
+    * un tramo y la posicion de un pixel dentro del tramo, de
+    * forma imperativa
+    * @param recuentos numero de pixels de cada tramo
+    * @param selector  selector de tramos
+    * @param k         numero de pixels a seleccionar
+    * @param generador generador de numeros aleatorios
+    * @return para cada centroide, tramo y posicion en el tramo
     */
-   private List<Pixel> muestrearImperativo(
-           Map<Integer, List<Pixel>> porIntervalo,
-           List<Double> distribucion, int k) {
-      // se crea la lista de pixels a devolver
-      List<Pixel> seleccionados = new ArrayList<>();
-
-      // se crea el generador de numeros aleatorios
-      Random generador = new Random();
-
-      // se realiza el muestreo mediante generacion
-      // de numeros aleatorios
-      double semilla;
-      int indiceIntervalo;
+   private List<int[]> muestrearImperativo(int[] recuentos,
+                                           SelectorPonderado selector, int k,
+                                           SplittableRandom generador) {
+      List<int[]> elegidos = new ArrayList<>();
       for(int i=0; i < k; i++){
-         // generar el numero aleatorio
-         semilla = generador.nextDouble();
+         // se elige el tramo segun su numero de pixels
+         int tramo = selector.seleccionar(generador);
 
-         // se obtiene el tramo al que corresponde el
-         // valor de semilla de acuerdo a la distribucion
-         indiceIntervalo = obtenerTramo(semilla, distribucion);
-
-         // se selecciona pixel del intervalo correspondiente
-         Pixel seleccionado =
-             seleccionarPixelTramo(porIntervalo.get(indiceIntervalo));
-
-         // se agrega el pixel seleccionado a la lista de
-         // seleccionados
-         seleccionados.add(seleccionado);
+         // se elige la posicion del pixel dentro del tramo
+         elegidos.add(new int[]{tramo, generador.nextInt(recuentos[tramo])});
       }
-
-      // se devuelve la lista de pixels seleccionados
-      return seleccionados;
+      return elegidos;
    }
 
    /**
-    * se obtiene el tramo al que corresponde un determinado
-    * valor aleatorio, de acuerdo con la distribucion pasada
-    * como segundo argumento
-    * FUNCIONAL
+    * localiza en una pasada por el almacen los pixels elegidos,
+    * dados por su tramo y su posicion dentro del tramo en el
+    * orden de los pixels de la imagen
     *
-    * @param semilla      valor de probabilidad a considerar
-    * @param distribucion distribucion de probabilidad
-    * @return indice del tramo seleccionado
+    * @param almacen  almacen de pixels
+    * @param tramos   division en tramos del rango de colores
+    * @param elegidos tramo y posicion de cada centroide
+    * @return lista de pixels seleccionados como centroides
     */
-   private int obtenerTramo(double semilla, List<Double> distribucion) {
-       return distribucion.indexOf(distribucion.stream()
-               .filter(valor -> valor >= semilla)
-               .limit(1)
-               .collect(Collectors.toList())
-               .getFirst());
+   private List<Pixel> localizar(AlmacenPixels almacen, Tramos tramos,
+                                 List<int[]> elegidos) {
+      int k = tramos.obtenerNumeroTramos();
+
+      // se ordenan los elegidos por tramo y posicion; para cada
+      // tramo se anota donde empiezan sus elegidos
+      Integer[] orden = new Integer[elegidos.size()];
+      for(int i=0; i < orden.length; i++){
+         orden[i] = i;
+      }
+      Arrays.sort(orden, Comparator.<Integer>comparingInt(i -> elegidos.get(i)[0])
+              .thenComparingInt(i -> elegidos.get(i)[1]));
+      int[] siguiente = new int[k + 1];
+      for(int[] elegido : elegidos){
+         siguiente[elegido[0] + 1]++;
+      }
+      for(int tramo=0; tramo < k; tramo++){
+         siguiente[tramo + 1] += siguiente[tramo];
+      }
+      int[] ultimo = Arrays.copyOfRange(siguiente, 1, k + 1);
+
+      // se recorre el almacen llevando la cuenta de pixels de
+      // cada tramo; cada entrada del almacen ocupa tantas
+      // posiciones como su peso
+      int[] contadores = new int[k];
+      Pixel[] seleccionados = new Pixel[elegidos.size()];
+      for(int i=0; i < almacen.obtenerNumeroPixels(); i++){
+         int color = almacen.obtenerIndice(i);
+         int peso = almacen.obtenerPeso(i);
+         for(int tramo = tramos.obtenerPrimero(color);
+             tramo <= tramos.obtenerUltimo(color); tramo++){
+            if(tramos.contiene(tramo, color)){
+               contadores[tramo] += peso;
+               while(siguiente[tramo] < ultimo[tramo] &&
+                       elegidos.get(orden[siguiente[tramo]])[1] < contadores[tramo]){
+                  seleccionados[orden[siguiente[tramo]]] = almacen.obtenerPixel(i);
+                  siguiente[tramo]++;
+               }
+            }
+         }
+      }
 
+      // se devuelve la lista de pixels seleccionados
+      return new ArrayList<>(Arrays.asList(seleccionados));
    }
 
    /**
-    * se obtiene el tramo al que corresponde un determinado
-    * valor aleatorio, de acuerdo con la distribucion pasada
-    * como segundo argumento de forma imperativa
-    *
-    * @param semilla      valor de probabilidad a considerar
-    * @param distribucion distribucion de probabilidad
-    * @return indice del tramo seleccionado
+    * division del rango de indices de color en tramos abiertos
+    * (minimo + incremento * i, minimo + incremento * (i + 1)):
+    * los pixels con color igual a un extremo no pertenecen al
+    * tramo
     */
-   private int obtenerTramoImperativo(double semilla, List<Double> distribucion) {
-      boolean terminar = false;
-      int indice = -1;
-
-      // bucle de recorrido de los valores de la
-      // distribucion
-      for(int i=0; i < distribucion.size() && !terminar; i++){
-         if(distribucion.get(i) >= semilla){
-            terminar = true;
-            indice = i;
-         }
+   private static class Tramos {
+      /**
+       * numero de tramos
+       */
+      private final int numero;
+
+      /**
+       * color minimo del rango
+       */
+      private final double minimo;
+
+      /**
+       * amplitud de cada tramo
+       */
+      private final double incremento;
+
+      /**
+       * constructor de la clase
+       *
+       * @param numero numero de tramos
+       * @param minimo color minimo
+       * @param maximo color maximo
+       */
+      Tramos(int numero, int minimo, int maximo) {
+         this.numero = numero;
+         this.minimo = minimo;
+         this.incremento = (maximo - minimo) / (numero * 1.0);
       }
 
-      // se devuelve el valor de indice
-      return indice;
-   }
+      /**
+       * devuelve el numero de tramos
+       *
+       * @return numero de tramos
+       */
+      int obtenerNumeroTramos() {
+         return numero;
+      }
 
-   /**
-    * se selecciona de forma aleatoria un pixel de la lista
-    * de pixels pasados como argumentos
-    *
-    * @param pixels lista de pixels a considerar
-    * @return pixel seleccionado de forma aleatoria
-    */
-   private Pixel seleccionarPixelTramo(List<Pixel> pixels) {
-      // se selecciona un indice entre 0 y el numero de pixels
-      // de la lista pasada como argumento
-      Random generador = new Random();
-      int indice = generador.nextInt(pixels.size());
-
-      // se devuelve el pixel asociado al indice
-      return pixels.get(indice);
+      /**
+       * primer tramo que puede contener un color: el anterior
+       * al calculado, por posibles errores de redondeo
+       *
+       * @param color indice de color
+       * @return posicion del tramo
+       */
+      int obtenerPrimero(int color) {
+         return Math.max(0, calcular(color) - 1);
+      }
+
+      /**
+       * ultimo tramo que puede contener un color: el siguiente
+       * al calculado, por posibles errores de redondeo
+       *
+       * @param color indice de color
+       * @return posicion del tramo
+       */
+      int obtenerUltimo(int color) {
+         return Math.min(numero - 1, calcular(color) + 1);
+      }
+
+      /**
+       * determina si un color pertenece a un tramo
+       *
+       * @param tramo posicion del tramo
+       * @param color indice de color
+       * @return true si el color esta en el interior del tramo
+       */
+      boolean contiene(int tramo, int color) {
+         double inicio = minimo + incremento * tramo;
+         return color > inicio && color < inicio + incremento;
+      }
+
+      /**
+       * suma el peso de un pixel del almacen a los tramos que
+       * lo contienen
+       *
+       * @param almacen   almacen de pixels
+       * @param i         posicion del pixel
+       * @param recuentos numero de pixels de cada tramo
+       */
+      void contar(AlmacenPixels almacen, int i, int[] recuentos) {
+         int color = almacen.obtenerIndice(i);
+         for(int tramo = obtenerPrimero(color); tramo <= obtenerUltimo(color);
+             tramo++){
+            if(contiene(tramo, color)){
+               recuentos[tramo] += almacen.obtenerPeso(i);
+            }
+         }
+      }
+
+      /**
+       * calcula el tramo de un color
+       *
+       * @param color indice de color
+       * @return posicion aproximada del tramo, dentro del rango
+       */
+      private int calcular(int color) {
+         if(incremento == 0){
+            return 0;
+         }
+         double tramo = Math.floor((color - minimo) / incremento);
+         return (int) Math.max(0, Math.min(numero - 1, tramo));
+      }
    }
 }
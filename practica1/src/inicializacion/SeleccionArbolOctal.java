@@ -0,0 +1,27 @@
+package inicializacion;
+
+import imagen.Pixel;
+import kmedias.ArbolOctal;
+import kmedias.KMedias;
+
+import java.util.List;
+
+/**
+ * clase para seleccionar como centroides la paleta obtenida
+ * con el cuantificador por arbol octal, que recorre los pixels
+ * una sola vez con memoria acotada
+ */
+public class SeleccionArbolOctal implements EstrategiaInicializacion {
+   /**
+    * seleccion de centroides por arbol octal
+    *
+    * @param kmedias objeto a inicializar
+    * @return lista de pixels seleccionados como
+    * centroides
+    */
+   @Override
+   public List<Pixel> seleccionar(KMedias kmedias) {
+      return ArbolOctal.obtenerPaleta(kmedias.obtenerAlmacen(),
+              kmedias.obtenerK());
+   }
+}
@@ -0,0 +1,27 @@
+package inicializacion;
+
+import imagen.Pixel;
+import kmedias.CorteMediana;
+import kmedias.KMedias;
+
+import java.util.List;
+
+/**
+ * clase para seleccionar como centroides la paleta obtenida
+ * con el cuantificador por corte de la mediana, de modo que
+ * las iteraciones parten ya de una buena paleta
+ */
+public class SeleccionCorteMediana implements EstrategiaInicializacion {
+   /**
+    * seleccion de centroides por corte de la mediana
+    *
+    * @param kmedias objeto a inicializar
+    * @return lista de pixels seleccionados como
+    * centroides
+    */
+   @Override
+   public List<Pixel> seleccionar(KMedias kmedias) {
+      return new CorteMediana(kmedias.obtenerAlmacen()).
+              obtenerPaleta(kmedias.obtenerK());
+   }
+}
@@ -1,5 +1,6 @@
 package inicializacion;
 
+import imagen.AlmacenPixels;
 import imagen.Pixel;
 import imagen.Utilidades;
 import kmedias.KMedias;
@@ -27,7 +28,7 @@ public class SeleccionUniforme implements EstrategiaInicializacion {
    @Override
    public List<Pixel> seleccionar(KMedias kmedias) {
       // se obtienen los pixels de la imagen
-      List<Pixel> pixels = kmedias.obtenerPixels();
+      AlmacenPixels almacen = kmedias.obtenerAlmacen();
 
       // se obtiene el valor de k
       int k = kmedias.obtenerK();
@@ -36,7 +37,7 @@ public class SeleccionUniforme implements EstrategiaInicializacion {
       List<Pixel> seleccionados = new ArrayList<>();
 
       // se determinan los colores maximo y minino
-      List<Integer> minMax = Utilidades.obtenerMinimoMaximo(pixels);
+      List<Integer> minMax = Utilidades.obtenerMinimoMaximo(almacen);
 
       // se agrega a seleccionados un pixel cuyo indice sea
       // el color minimo
@@ -61,7 +62,7 @@ public class SeleccionUniforme implements EstrategiaInicializacion {
 
    public List<Pixel> seleccionarImperativo(KMedias kmedias) {
       // se obtienen los pixels de la imagen
-      List<Pixel> pixels = kmedias.obtenerPixels();
+      AlmacenPixels almacen = kmedias.obtenerAlmacen();
 
       // se obtiene el valor de k
       int k = kmedias.obtenerK();
@@ -70,7 +71,7 @@ public class SeleccionUniforme implements EstrategiaInicializacion {
       List<Pixel> seleccionados = new ArrayList<>();
 
       // se determinan los colores maximo y minino
-      List<Integer> minMax = Utilidades.obtenerMinimoMaximo(pixels);
+      List<Integer> minMax = Utilidades.obtenerMinimoMaximoImperativa(almacen);
 
       // se agrega a seleccionados un pixel cuyo indice sea
       // el color minimo
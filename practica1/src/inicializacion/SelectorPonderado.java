@@ -0,0 +1,138 @@
+package inicializacion;
+
+import java.util.SplittableRandom;
+
+/**
+ * seleccion de posiciones al azar con probabilidad proporcional a
+ * unos pesos, mediante el metodo alias de Walker (construccion de
+ * Vose). La tabla se construye una vez en tiempo lineal y cada
+ * seleccion cuesta tiempo constante: se elige una columna de forma
+ * uniforme y, con la probabilidad de la columna, la propia columna
+ * o su alias. La tabla no se modifica tras construirla, por lo que
+ * puede compartirse entre hilos; el generador se pasa en cada
+ * seleccion, y con la misma semilla se repiten las selecciones
+ */
+public class SelectorPonderado {
+   /**
+    * probabilidad de quedarse con cada columna
+    */
+   private final double[] probabilidades;
+
+   /**
+    * posicion alternativa de cada columna
+    */
+   private final int[] alias;
+
+   /**
+    * constructor de la clase
+    *
+    * @param pesos pesos no negativos de cada posicion
+    * @throws IllegalArgumentException si algun peso es negativo
+    * o todos son nulos
+    */
+   public SelectorPonderado(double[] pesos) {
+      int numero = pesos.length;
+      double total = 0;
+      for (double peso : pesos) {
+         if (!(peso >= 0)) {
+            throw new IllegalArgumentException("peso no valido: " + peso);
+         }
+         total += peso;
+      }
+      if (!(total > 0) || Double.isInfinite(total)) {
+         throw new IllegalArgumentException("la suma de los pesos no es positiva");
+      }
+
+      // se escalan los pesos para que su media sea 1 y se separan
+      // en columnas por debajo y por encima de la media
+      probabilidades = new double[numero];
+      alias = new int[numero];
+      double[] escalados = new double[numero];
+      int[] pequennos = new int[numero];
+      int[] grandes = new int[numero];
+      int numeroPequennos = 0;
+      int numeroGrandes = 0;
+      for (int i = 0; i < numero; i++) {
+         escalados[i] = pesos[i] * numero / total;
+         if (escalados[i] < 1) {
+            pequennos[numeroPequennos++] = i;
+         } else {
+            grandes[numeroGrandes++] = i;
+         }
+      }
+
+      // cada columna pequenna se completa con una grande, que
+      // pasa a ser su alias
+      while (numeroPequennos > 0 && numeroGrandes > 0) {
+         int pequenna = pequennos[--numeroPequennos];
+         int grande = grandes[numeroGrandes - 1];
+         probabilidades[pequenna] = escalados[pequenna];
+         alias[pequenna] = grande;
+         escalados[grande] = (escalados[grande] + escalados[pequenna]) - 1;
+         if (escalados[grande] < 1) {
+            numeroGrandes--;
+            pequennos[numeroPequennos++] = grande;
+         }
+      }
+
+      // las columnas restantes se llenan por completo (las
+      // pequennas solo quedan por errores de redondeo)
+      while (numeroGrandes > 0) {
+         int grande = grandes[--numeroGrandes];
+         probabilidades[grande] = 1;
+         alias[grande] = grande;
+      }
+      while (numeroPequennos > 0) {
+         int pequenna = pequennos[--numeroPequennos];
+         probabilidades[pequenna] = 1;
+         alias[pequenna] = pequenna;
+      }
+   }
+
+   /**
+    * constructor a partir de pesos enteros, como el numero de
+    * pixels de cada grupo
+    *
+    * @param pesos pesos no negativos de cada posicion
+    * @throws IllegalArgumentException si algun peso es negativo
+    * o todos son nulos
+    */
+   public SelectorPonderado(int[] pesos) {
+      this(convertir(pesos));
+   }
+
+   /**
+    * elige una posicion al azar
+    *
+    * @param generador generador de numeros aleatorios
+    * @return posicion elegida
+    */
+   public int seleccionar(SplittableRandom generador) {
+      int columna = generador.nextInt(probabilidades.length);
+      return generador.nextDouble() < probabilidades[columna] ?
+              columna : alias[columna];
+   }
+
+   /**
+    * devuelve el numero de posiciones entre las que se elige
+    *
+    * @return numero de posiciones
+    */
+   public int obtenerNumeroPosiciones() {
+      return probabilidades.length;
+   }
+
+   /**
+    * convierte pesos enteros a reales
+    *
+    * @param pesos pesos enteros
+    * @return pesos reales
+    */
+   private static double[] convertir(int[] pesos) {
+      double[] reales = new double[pesos.length];
+      for (int i = 0; i < pesos.length; i++) {
+         reales[i] = pesos[i];
+      }
+      return reales;
+   }
+}
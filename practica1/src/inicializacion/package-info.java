@@ -10,5 +10,13 @@
  * no son muy grandes
  * e) ConvergenciaRuido: se detiene si el ruido obtenido al filtrar supera
  * un determinado umbral
+ * f) KMediasParalelo: seleccion de centroides alejados entre si con
+ * k-medias||, muestreando el almacen por bloques en paralelo
+ * g) SelectorPonderado: seleccion de posiciones con probabilidad
+ * proporcional a unos pesos en tiempo constante (metodo alias)
+ * h) SeleccionCorteMediana: paleta del cuantificador por corte de
+ * la mediana como centroides iniciales
+ * i) SeleccionArbolOctal: paleta del cuantificador por arbol octal
+ * como centroides iniciales
  */
 package inicializacion;
\ No newline at end of file
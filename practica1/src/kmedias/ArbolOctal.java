@@ -0,0 +1,413 @@
+package kmedias;
+
+import imagen.AlmacenPixels;
+import imagen.Imagen;
+import imagen.Pixel;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * cuantificador por arbol octal (Gervautz y Purgathofer). Los
+ * colores se insertan de uno en uno: cada nivel del arbol usa un
+ * bit de cada componente para elegir uno de los ocho hijos, y las
+ * hojas acumulan la suma de las componentes y el numero de pixels.
+ * Cuando hay mas hojas que colores deseados se reduce el nodo
+ * interno mas profundo, que pasa a ser hoja con la suma de sus
+ * hijos; si asi quedaran menos de k hojas, solo se unen sus hojas
+ * mas ligeras con la hermana de color mas proximo. El numero de
+ * nodos queda asi acotado en funcion de k y no del tamaño de la
+ * imagen, y basta una pasada por los pixels. Los nodos se guardan
+ * en arrays de tipo primitivo y los eliminados se reutilizan.
+ * Puede usarse solo (modo de iteracion NINGUNA) o como
+ * inicializacion
+ */
+public class ArbolOctal {
+   /**
+    * profundidad maxima: un nivel por bit de cada componente
+    */
+   private static final int PROFUNDIDAD = 8;
+
+   /**
+    * marca de ausencia de nodo
+    */
+   private static final int NINGUNO = -1;
+
+   /**
+    * numero maximo de hojas
+    */
+   private final int k;
+
+   /**
+    * hijos de cada nodo, ocho posiciones por nodo
+    */
+   private int[] hijos;
+
+   /**
+    * suma de la componente roja de los pixels de cada hoja
+    */
+   private long[] sumaRojo;
+
+   /**
+    * suma de la componente verde de los pixels de cada hoja
+    */
+   private long[] sumaVerde;
+
+   /**
+    * suma de la componente azul de los pixels de cada hoja
+    */
+   private long[] sumaAzul;
+
+   /**
+    * numero de pixels de cada hoja
+    */
+   private long[] pesos;
+
+   /**
+    * indica si cada nodo es una hoja
+    */
+   private boolean[] hojas;
+
+   /**
+    * siguiente nodo en la pila de nodos internos de su nivel o
+    * en la lista de nodos libres
+    */
+   private int[] siguientes;
+
+   /**
+    * ultimo nodo interno creado en cada nivel (pila de nodos
+    * reducibles)
+    */
+   private final int[] reducibles;
+
+   /**
+    * primer nodo de la lista de nodos libres
+    */
+   private int libre;
+
+   /**
+    * numero de nodos usados de los arrays
+    */
+   private int numeroNodos;
+
+   /**
+    * numero de hojas del arbol
+    */
+   private int numeroHojas;
+
+   /**
+    * indica si se ha reducido algun nodo u hoja: desde entonces
+    * el arbol debe tener exactamente k hojas
+    */
+   private boolean reducido;
+
+   /**
+    * constructor de la clase: crea el arbol con la raiz
+    *
+    * @param k numero de colores de la paleta
+    * @throws IllegalArgumentException si k no es positivo
+    */
+   public ArbolOctal(int k) {
+      if (k < 1) {
+         throw new IllegalArgumentException("numero de colores no valido: " + k);
+      }
+      this.k = k;
+      int capacidad = 64;
+      hijos = new int[capacidad * 8];
+      sumaRojo = new long[capacidad];
+      sumaVerde = new long[capacidad];
+      sumaAzul = new long[capacidad];
+      pesos = new long[capacidad];
+      hojas = new boolean[capacidad];
+      siguientes = new int[capacidad];
+      reducibles = new int[PROFUNDIDAD];
+      Arrays.fill(reducibles, NINGUNO);
+      libre = NINGUNO;
+      numeroNodos = 0;
+      numeroHojas = 0;
+      reducido = false;
+      crearNodo(0);
+   }
+
+   /**
+    * obtiene la paleta de una imagen recorriendo sus pixels
+    * una sola vez
+    *
+    * @param imagen imagen a cuantificar
+    * @param k      numero de colores
+    * @return lista con los colores de la paleta
+    */
+   public static List<Pixel> obtenerPaleta(Imagen imagen, int k) {
+      ArbolOctal arbol = new ArbolOctal(k);
+      for (int color : imagen.obtenerDatos()) {
+         arbol.agregar(color, 1);
+      }
+      return arbol.obtenerPaleta();
+   }
+
+   /**
+    * obtiene la paleta de los pixels de un almacen recorriendolo
+    * una sola vez
+    *
+    * @param almacen almacen de pixels
+    * @param k       numero de colores
+    * @return lista con los colores de la paleta
+    */
+   public static List<Pixel> obtenerPaleta(AlmacenPixels almacen, int k) {
+      ArbolOctal arbol = new ArbolOctal(k);
+      for (int i = 0; i < almacen.obtenerNumeroPixels(); i++) {
+         arbol.agregar(almacen.obtenerIndice(i), almacen.obtenerPeso(i));
+      }
+      return arbol.obtenerPaleta();
+   }
+
+   /**
+    * agrega un color al arbol
+    *
+    * @param color color a agregar (se ignora la componente alfa)
+    * @param peso  numero de pixels con ese color
+    */
+   public void agregar(int color, long peso) {
+      int rojo = (color >>> 16) & 0xff;
+      int verde = (color >>> 8) & 0xff;
+      int azul = color & 0xff;
+
+      // se desciende hasta una hoja, creando los nodos que falten
+      int nodo = 0;
+      for (int nivel = 0; !hojas[nodo]; nivel++) {
+         int bit = PROFUNDIDAD - 1 - nivel;
+         int hijo = (((rojo >>> bit) & 1) << 2) | (((verde >>> bit) & 1) << 1) |
+                 ((azul >>> bit) & 1);
+         if (hijos[nodo * 8 + hijo] == NINGUNO) {
+            int nuevo = crearNodo(nivel + 1);
+            hijos[nodo * 8 + hijo] = nuevo;
+         }
+         nodo = hijos[nodo * 8 + hijo];
+      }
+
+      // se acumula el color en la hoja
+      sumaRojo[nodo] += peso * rojo;
+      sumaVerde[nodo] += peso * verde;
+      sumaAzul[nodo] += peso * azul;
+      pesos[nodo] += peso;
+
+      // se reduce el arbol si hay demasiadas hojas
+      while (numeroHojas > k) {
+         reducir();
+      }
+   }
+
+   /**
+    * obtiene la paleta: la media de los colores de cada hoja, en
+    * el orden del recorrido del arbol. Si hay menos hojas que
+    * colores la paleta repite colores
+    *
+    * @return lista con los colores de la paleta
+    */
+   public List<Pixel> obtenerPaleta() {
+      List<Pixel> paleta = new ArrayList<>(k);
+      recorrer(0, paleta);
+
+      // sin pixels se devuelve el negro
+      if (paleta.isEmpty()) {
+         paleta.add(new Pixel(0.0, 0.0, 0.0));
+      }
+      int numero = paleta.size();
+
+      // las reducciones nunca dejan menos de k colores distintos
+      assert !reducido || numero == k : "paleta con " + numero + " colores";
+      for (int i = numero; i < k; i++) {
+         paleta.add(paleta.get(i % numero));
+      }
+      return paleta;
+   }
+
+   /**
+    * agrega a la paleta los colores de las hojas de un subarbol
+    *
+    * @param nodo   raiz del subarbol
+    * @param paleta lista de colores
+    */
+   private void recorrer(int nodo, List<Pixel> paleta) {
+      if (hojas[nodo]) {
+         if (pesos[nodo] > 0) {
+            double divisor = pesos[nodo] * 256.0;
+            paleta.add(new Pixel(sumaRojo[nodo] / divisor,
+                    sumaVerde[nodo] / divisor, sumaAzul[nodo] / divisor));
+         }
+      } else {
+         for (int hijo = 0; hijo < 8; hijo++) {
+            if (hijos[nodo * 8 + hijo] != NINGUNO) {
+               recorrer(hijos[nodo * 8 + hijo], paleta);
+            }
+         }
+      }
+   }
+
+   /**
+    * reduce el ultimo nodo interno creado en el nivel mas
+    * profundo: sus hijos, todos hojas, se suman en el y se
+    * liberan. Si con ello quedaran menos de k hojas, solo se
+    * unen las necesarias y el nodo sigue siendo interno
+    */
+   private void reducir() {
+      int nivel = PROFUNDIDAD - 1;
+      while (reducibles[nivel] == NINGUNO) {
+         nivel--;
+      }
+      int nodo = reducibles[nivel];
+      reducido = true;
+
+      // se cuentan los hijos: reducir el nodo quita todos menos uno
+      int numeroHijos = 0;
+      for (int hijo = 0; hijo < 8; hijo++) {
+         if (hijos[nodo * 8 + hijo] != NINGUNO) {
+            numeroHijos++;
+         }
+      }
+      if (numeroHojas - numeroHijos + 1 < k) {
+         while (numeroHojas > k) {
+            unirHermanas(nodo);
+         }
+         return;
+      }
+      reducibles[nivel] = siguientes[nodo];
+
+      // se suman los hijos en el nodo
+      for (int hijo = 0; hijo < 8; hijo++) {
+         int eliminado = hijos[nodo * 8 + hijo];
+         if (eliminado != NINGUNO) {
+            sumaRojo[nodo] += sumaRojo[eliminado];
+            sumaVerde[nodo] += sumaVerde[eliminado];
+            sumaAzul[nodo] += sumaAzul[eliminado];
+            pesos[nodo] += pesos[eliminado];
+            hijos[nodo * 8 + hijo] = NINGUNO;
+            numeroHojas--;
+
+            // el nodo pasa a la lista de libres
+            siguientes[eliminado] = libre;
+            libre = eliminado;
+         }
+      }
+
+      // el nodo pasa a ser una hoja
+      hojas[nodo] = true;
+      numeroHojas++;
+   }
+
+   /**
+    * une la hoja mas ligera de un nodo con la hermana de color
+    * medio mas proximo. El nodo debe tener al menos dos hijos,
+    * todos hojas
+    *
+    * @param nodo nodo cuyos hijos se unen
+    */
+   private void unirHermanas(int nodo) {
+      // se busca la hoja mas ligera
+      int ligera = NINGUNO;
+      for (int hijo = 0; hijo < 8; hijo++) {
+         int hoja = hijos[nodo * 8 + hijo];
+         if (hoja != NINGUNO && (ligera == NINGUNO ||
+                 pesos[hoja] < pesos[hijos[nodo * 8 + ligera]])) {
+            ligera = hijo;
+         }
+      }
+      int eliminado = hijos[nodo * 8 + ligera];
+
+      // se busca la hermana de color medio mas proximo
+      int destino = NINGUNO;
+      double minimo = Double.POSITIVE_INFINITY;
+      for (int hijo = 0; hijo < 8; hijo++) {
+         int hoja = hijos[nodo * 8 + hijo];
+         if (hoja != NINGUNO && hijo != ligera) {
+            double distancia = distanciaMedias(eliminado, hoja);
+            if (distancia < minimo || destino == NINGUNO) {
+               minimo = distancia;
+               destino = hoja;
+            }
+         }
+      }
+
+      // se suma la hoja en su hermana y se libera
+      sumaRojo[destino] += sumaRojo[eliminado];
+      sumaVerde[destino] += sumaVerde[eliminado];
+      sumaAzul[destino] += sumaAzul[eliminado];
+      pesos[destino] += pesos[eliminado];
+      hijos[nodo * 8 + ligera] = NINGUNO;
+      numeroHojas--;
+      siguientes[eliminado] = libre;
+      libre = eliminado;
+   }
+
+   /**
+    * calcula la distancia cuadratica entre los colores medios de
+    * dos hojas. Una hoja sin pixels esta a distancia 0 de todas
+    *
+    * @param una  primera hoja
+    * @param otra segunda hoja
+    * @return distancia cuadratica entre las medias
+    */
+   private double distanciaMedias(int una, int otra) {
+      if (pesos[una] == 0 || pesos[otra] == 0) {
+         return 0;
+      }
+      double rojo = (double) sumaRojo[una] / pesos[una] -
+              (double) sumaRojo[otra] / pesos[otra];
+      double verde = (double) sumaVerde[una] / pesos[una] -
+              (double) sumaVerde[otra] / pesos[otra];
+      double azul = (double) sumaAzul[una] / pesos[una] -
+              (double) sumaAzul[otra] / pesos[otra];
+      return rojo * rojo + verde * verde + azul * azul;
+   }
+
+   /**
+    * crea un nodo vacio, reutilizando uno libre si lo hay. Los
+    * nodos del nivel maximo son hojas; el resto se anota como
+    * reducible en su nivel
+    *
+    * @param nivel nivel del nodo
+    * @return posicion del nodo
+    */
+   private int crearNodo(int nivel) {
+      int nodo;
+      if (libre != NINGUNO) {
+         nodo = libre;
+         libre = siguientes[nodo];
+      } else {
+         if (numeroNodos == pesos.length) {
+            ampliar();
+         }
+         nodo = numeroNodos++;
+      }
+
+      // se inicia el nodo
+      Arrays.fill(hijos, nodo * 8, nodo * 8 + 8, NINGUNO);
+      sumaRojo[nodo] = 0;
+      sumaVerde[nodo] = 0;
+      sumaAzul[nodo] = 0;
+      pesos[nodo] = 0;
+      hojas[nodo] = nivel == PROFUNDIDAD;
+      if (hojas[nodo]) {
+         numeroHojas++;
+      } else {
+         siguientes[nodo] = reducibles[nivel];
+         reducibles[nivel] = nodo;
+      }
+      return nodo;
+   }
+
+   /**
+    * duplica la capacidad de los arrays de nodos
+    */
+   private void ampliar() {
+      int capacidad = pesos.length << 1;
+      hijos = Arrays.copyOf(hijos, capacidad * 8);
+      sumaRojo = Arrays.copyOf(sumaRojo, capacidad);
+      sumaVerde = Arrays.copyOf(sumaVerde, capacidad);
+      sumaAzul = Arrays.copyOf(sumaAzul, capacidad);
+      pesos = Arrays.copyOf(pesos, capacidad);
+      hojas = Arrays.copyOf(hojas, capacidad);
+      siguientes = Arrays.copyOf(siguientes, capacidad);
+   }
+}
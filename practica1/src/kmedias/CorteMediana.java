@@ -0,0 +1,261 @@
+package kmedias;
+
+import imagen.AlmacenPixels;
+import imagen.Pixel;
+import imagen.TablaColores;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * cuantificador por corte de la mediana (Heckbert). Trabaja sobre
+ * el histograma de colores distintos de la imagen, en arrays de
+ * tipo primitivo: se parte de una caja con todos los colores y se
+ * divide repetidamente la caja con mayor peso por amplitud, por la
+ * mediana ponderada de su componente de mayor amplitud, hasta
+ * tener k cajas. Cada color de la paleta es la media ponderada de
+ * los colores de su caja. Es mucho mas rapido que las k-medias y
+ * de calidad algo inferior; puede usarse solo (modo de iteracion
+ * NINGUNA) o como inicializacion
+ */
+public class CorteMediana {
+   /**
+    * numero de valores posibles de cada componente
+    */
+   private static final int VALORES = 256;
+
+   /**
+    * componentes de cada color distinto, de 0 a 255. Los
+    * colores se reordenan de forma que cada caja ocupa un
+    * intervalo consecutivo
+    */
+   private final int[][] componentes;
+
+   /**
+    * numero de pixels de cada color distinto, en el mismo orden
+    */
+   private final int[] pesos;
+
+   /**
+    * constructor de la clase: obtiene el histograma de colores
+    * del almacen (directamente si el almacen ya es un histograma)
+    *
+    * @param almacen almacen de pixels de la imagen
+    */
+   public CorteMediana(AlmacenPixels almacen) {
+      int[] colores;
+      int[] cuentas;
+      if (almacen.esHistograma()) {
+         colores = new int[almacen.obtenerNumeroPixels()];
+         cuentas = new int[colores.length];
+         for (int i = 0; i < colores.length; i++) {
+            colores[i] = almacen.obtenerIndice(i);
+            cuentas[i] = almacen.obtenerPeso(i);
+         }
+      } else {
+         // se numeran los colores distintos y se cuentan
+         TablaColores tabla = new TablaColores(almacen.obtenerNumeroPixels());
+         cuentas = new int[16];
+         for (int i = 0; i < almacen.obtenerNumeroPixels(); i++) {
+            int numero = tabla.numerar(almacen.obtenerIndice(i));
+            if (numero == cuentas.length) {
+               cuentas = Arrays.copyOf(cuentas, numero << 1);
+            }
+            cuentas[numero]++;
+         }
+         colores = new int[tabla.obtenerNumeroColores()];
+         for (int numero = 0; numero < colores.length; numero++) {
+            colores[numero] = tabla.obtenerColor(numero);
+         }
+         cuentas = Arrays.copyOf(cuentas, colores.length);
+      }
+
+      // se separan las componentes
+      componentes = new int[3][colores.length];
+      for (int i = 0; i < colores.length; i++) {
+         componentes[0][i] = (colores[i] >>> 16) & 0xff;
+         componentes[1][i] = (colores[i] >>> 8) & 0xff;
+         componentes[2][i] = colores[i] & 0xff;
+      }
+      pesos = cuentas;
+   }
+
+   /**
+    * obtiene una paleta de k colores. Si la imagen tiene menos
+    * de k colores distintos, la paleta repite colores
+    *
+    * @param k numero de colores
+    * @return lista con los colores de la paleta
+    */
+   public List<Pixel> obtenerPaleta(int k) {
+      // cajas: intervalo de colores, componente de mayor amplitud,
+      // amplitud y peso
+      int[] inicios = new int[k];
+      int[] fines = new int[k];
+      int[] canales = new int[k];
+      int[] amplitudes = new int[k];
+      long[] pesosCajas = new long[k];
+      int numeroCajas = 1;
+      inicios[0] = 0;
+      fines[0] = pesos.length;
+      medir(0, inicios, fines, canales, amplitudes, pesosCajas);
+
+      while (numeroCajas < k) {
+         // se elige la caja con mayor peso por amplitud
+         int elegida = -1;
+         double prioridad = 0;
+         for (int caja = 0; caja < numeroCajas; caja++) {
+            double valor = (double) pesosCajas[caja] * amplitudes[caja];
+            if (valor > prioridad) {
+               prioridad = valor;
+               elegida = caja;
+            }
+         }
+
+         // si ninguna caja puede dividirse se termina
+         if (elegida < 0) {
+            break;
+         }
+
+         // se divide: la segunda mitad pasa a ser una caja nueva
+         int corte = dividir(inicios[elegida], fines[elegida], canales[elegida],
+            pesosCajas[elegida]);
+         inicios[numeroCajas] = corte;
+         fines[numeroCajas] = fines[elegida];
+         fines[elegida] = corte;
+         medir(elegida, inicios, fines, canales, amplitudes, pesosCajas);
+         medir(numeroCajas, inicios, fines, canales, amplitudes, pesosCajas);
+         numeroCajas++;
+      }
+
+      // se calcula la media de cada caja; si faltan cajas se
+      // repiten sus colores
+      List<Pixel> paleta = new ArrayList<>(k);
+      for (int caja = 0; caja < k; caja++) {
+         int origen = caja % numeroCajas;
+         double[] sumas = new double[3];
+         for (int canal = 0; canal < 3; canal++) {
+            int[] valores = componentes[canal];
+            for (int i = inicios[origen]; i < fines[origen]; i++) {
+               sumas[canal] += (double) pesos[i] * valores[i];
+            }
+         }
+         double peso = pesosCajas[origen] * (double) VALORES;
+         paleta.add(new Pixel(sumas[0] / peso, sumas[1] / peso, sumas[2] / peso));
+      }
+      return paleta;
+   }
+
+   /**
+    * calcula el peso de una caja, su componente de mayor
+    * amplitud y la amplitud de esa componente
+    *
+    * @param caja       posicion de la caja
+    * @param inicios    primer color de cada caja
+    * @param fines      posicion siguiente al ultimo color de cada caja
+    * @param canales    componente de mayor amplitud de cada caja
+    * @param amplitudes amplitud de esa componente
+    * @param pesosCajas numero de pixels de cada caja
+    */
+   private void medir(int caja, int[] inicios, int[] fines, int[] canales,
+                      int[] amplitudes, long[] pesosCajas) {
+      int[] minimos = {VALORES, VALORES, VALORES};
+      int[] maximos = {-1, -1, -1};
+      for (int canal = 0; canal < 3; canal++) {
+         int[] valores = componentes[canal];
+         for (int i = inicios[caja]; i < fines[caja]; i++) {
+            minimos[canal] = Math.min(minimos[canal], valores[i]);
+            maximos[canal] = Math.max(maximos[canal], valores[i]);
+         }
+      }
+      long peso = 0;
+      for (int i = inicios[caja]; i < fines[caja]; i++) {
+         peso += pesos[i];
+      }
+
+      // en caso de empate se prefiere el orden rojo, verde, azul
+      canales[caja] = 0;
+      for (int canal = 1; canal < 3; canal++) {
+         if (maximos[canal] - minimos[canal] >
+                 maximos[canales[caja]] - minimos[canales[caja]]) {
+            canales[caja] = canal;
+         }
+      }
+      amplitudes[caja] = maximos[canales[caja]] - minimos[canales[caja]];
+      pesosCajas[caja] = peso;
+   }
+
+   /**
+    * ordena los colores de una caja por una componente (por
+    * recuento, en tiempo lineal) y determina el corte por la
+    * mediana ponderada. Las dos partes quedan siempre con algun
+    * color, ya que la componente tiene al menos dos valores
+    *
+    * @param inicio primer color de la caja
+    * @param fin    posicion siguiente al ultimo color
+    * @param canal  componente por la que se divide
+    * @param peso   numero de pixels de la caja
+    * @return posicion del primer color de la segunda parte
+    */
+   private int dividir(int inicio, int fin, int canal, long peso) {
+      int[] valores = componentes[canal];
+
+      // recuento de colores y pesos por valor
+      int[] posiciones = new int[VALORES + 1];
+      long[] pesosValor = new long[VALORES];
+      int maximo = 0;
+      for (int i = inicio; i < fin; i++) {
+         posiciones[valores[i] + 1]++;
+         pesosValor[valores[i]] += pesos[i];
+         maximo = Math.max(maximo, valores[i]);
+      }
+
+      // valor de la mediana: el primero que alcanza la mitad del
+      // peso, sin llegar al maximo para que la segunda parte no
+      // quede vacia
+      long acumulado = 0;
+      int mediana = -1;
+      for (int valor = 0; valor < maximo; valor++) {
+         if (pesosValor[valor] > 0) {
+            mediana = valor;
+            acumulado += pesosValor[valor];
+            if (2 * acumulado >= peso) {
+               break;
+            }
+         }
+      }
+
+      // ordenacion estable por recuento: se calcula el destino
+      // de cada color y se mueven todas sus componentes
+      for (int valor = 0; valor < VALORES; valor++) {
+         posiciones[valor + 1] += posiciones[valor];
+      }
+      int[] destinos = new int[fin - inicio];
+      for (int i = inicio; i < fin; i++) {
+         destinos[i - inicio] = posiciones[valores[i]]++;
+      }
+      mover(pesos, inicio, destinos);
+      for (int[] otros : componentes) {
+         mover(otros, inicio, destinos);
+      }
+
+      // la primera parte acaba tras los colores de la mediana
+      return inicio + posiciones[mediana];
+   }
+
+   /**
+    * mueve los valores de un intervalo de un array a sus
+    * posiciones de destino dentro del intervalo
+    *
+    * @param array    array a reordenar
+    * @param inicio   primera posicion del intervalo
+    * @param destinos destino de cada posicion, relativo al inicio
+    */
+   private static void mover(int[] array, int inicio, int[] destinos) {
+      int[] copia = Arrays.copyOfRange(array, inicio, inicio + destinos.length);
+      for (int i = 0; i < destinos.length; i++) {
+         array[inicio + destinos[i]] = copia[i];
+      }
+   }
+}
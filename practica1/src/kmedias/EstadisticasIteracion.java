@@ -0,0 +1,278 @@
+package kmedias;
+
+import imagen.Pixel;
+import imagen.Utilidades;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * clase para acumular los datos de cada grupo obtenidos al
+ * recorrer los pixels en una iteracion: sumas de las
+ * componentes y peso (numero de pixels) de cada grupo. Permite
+ * calcular los nuevos centros sin guardar listas de pixels y
+ * combinar resultados parciales de distintas tareas.
+ * Las estrategias que asignan todos los pixels anotan tambien
+ * la distancia de cada pixel al centro asignado y si ha cambiado
+ * de grupo, de forma que el error cuadratico y el ruido de cada
+ * grupo y el numero de pixels que han cambiado de grupo quedan
+ * disponibles sin volver a recorrer la imagen
+ */
+public class EstadisticasIteracion {
+   /**
+    * suma de las componentes rojas de cada grupo
+    */
+   private final double[] sumaRojo;
+
+   /**
+    * suma de las componentes verdes de cada grupo
+    */
+   private final double[] sumaVerde;
+
+   /**
+    * suma de las componentes azules de cada grupo
+    */
+   private final double[] sumaAzul;
+
+   /**
+    * peso acumulado (numero de pixels) de cada grupo
+    */
+   private final long[] pesos;
+
+   /**
+    * suma de las distancias cuadraticas de los pixels de cada
+    * grupo a su centro
+    */
+   private final double[] errores;
+
+   /**
+    * suma de las distancias de los pixels de cada grupo a su
+    * centro (ruido del grupo)
+    */
+   private final double[] ruidos;
+
+   /**
+    * numero de pixels que han cambiado de grupo
+    */
+   private long cambios;
+
+   /**
+    * indica si se han anotado las distancias y los cambios de
+    * grupo de los pixels
+    */
+   private boolean completa;
+
+   /**
+    * constructor de la clase
+    *
+    * @param grupos numero de grupos a considerar
+    */
+   public EstadisticasIteracion(int grupos) {
+      sumaRojo = new double[grupos];
+      sumaVerde = new double[grupos];
+      sumaAzul = new double[grupos];
+      pesos = new long[grupos];
+      errores = new double[grupos];
+      ruidos = new double[grupos];
+      cambios = 0;
+      completa = false;
+   }
+
+   /**
+    * acumula un pixel en un grupo
+    *
+    * @param grupo grupo al que se asigna el pixel
+    * @param peso  peso del pixel
+    * @param rojo  componente roja
+    * @param verde componente verde
+    * @param azul  componente azul
+    */
+   public void acumular(int grupo, int peso, double rojo, double verde,
+                        double azul) {
+      sumaRojo[grupo] += peso * rojo;
+      sumaVerde[grupo] += peso * verde;
+      sumaAzul[grupo] += peso * azul;
+      pesos[grupo] += peso;
+   }
+
+   /**
+    * acumula un pixel en un grupo junto con su distancia al
+    * centro del grupo, anotando si ha cambiado de grupo
+    *
+    * @param grupo     grupo al que se asigna el pixel
+    * @param peso      peso del pixel
+    * @param rojo      componente roja
+    * @param verde     componente verde
+    * @param azul      componente azul
+    * @param distancia distancia cuadratica del pixel al centro
+    * @param cambio    true si el pixel estaba en otro grupo
+    */
+   public void acumular(int grupo, int peso, double rojo, double verde,
+                        double azul, double distancia, boolean cambio) {
+      acumular(grupo, peso, rojo, verde, azul);
+      errores[grupo] += peso * distancia;
+      ruidos[grupo] += peso * Math.sqrt(distancia);
+      if (cambio) {
+         cambios += peso;
+      }
+      completa = true;
+   }
+
+   /**
+    * agrega a este objeto los valores acumulados en otro
+    *
+    * @param otra estadisticas a combinar con las actuales
+    */
+   public void combinar(EstadisticasIteracion otra) {
+      for (int grupo = 0; grupo < pesos.length; grupo++) {
+         sumaRojo[grupo] += otra.sumaRojo[grupo];
+         sumaVerde[grupo] += otra.sumaVerde[grupo];
+         sumaAzul[grupo] += otra.sumaAzul[grupo];
+         pesos[grupo] += otra.pesos[grupo];
+         errores[grupo] += otra.errores[grupo];
+         ruidos[grupo] += otra.ruidos[grupo];
+      }
+      cambios += otra.cambios;
+      completa = completa || otra.completa;
+   }
+
+   /**
+    * devuelve el numero de grupos
+    *
+    * @return numero de grupos
+    */
+   public int obtenerNumeroGrupos() {
+      return pesos.length;
+   }
+
+   /**
+    * devuelve el peso acumulado en un grupo
+    *
+    * @param grupo grupo de interes
+    * @return numero de pixels del grupo
+    */
+   public long obtenerPeso(int grupo) {
+      return pesos[grupo];
+   }
+
+   /**
+    * indica si se dispone de las distancias de los pixels a su
+    * centro (error y ruido de cada grupo) y del numero de pixels
+    * que han cambiado de grupo
+    *
+    * @return true si se han anotado las distancias y los cambios
+    */
+   public boolean esCompleta() {
+      return completa;
+   }
+
+   /**
+    * devuelve el numero de pixels que han cambiado de grupo en
+    * la iteracion
+    *
+    * @return numero de pixels que han cambiado de grupo
+    */
+   public long obtenerCambios() {
+      return cambios;
+   }
+
+   /**
+    * devuelve el error cuadratico de un grupo: suma de las
+    * distancias cuadraticas de sus pixels al centro con el que
+    * se asignaron
+    *
+    * @param grupo grupo de interes
+    * @return error cuadratico del grupo
+    */
+   public double obtenerError(int grupo) {
+      return errores[grupo];
+   }
+
+   /**
+    * devuelve el ruido de un grupo: suma de las distancias de
+    * sus pixels al centro con el que se asignaron
+    *
+    * @param grupo grupo de interes
+    * @return ruido del grupo
+    */
+   public double obtenerRuido(int grupo) {
+      return ruidos[grupo];
+   }
+
+   /**
+    * devuelve el error cuadratico de todos los grupos, que es
+    * la inercia de los centros con los que se asignaron los
+    * pixels
+    *
+    * @return suma de los errores de los grupos
+    */
+   public double obtenerErrorTotal() {
+      double total = 0;
+      for (double error : errores) {
+         total += error;
+      }
+      return total;
+   }
+
+   /**
+    * calcula el error cuadratico de todos los grupos con respecto
+    * a los nuevos centros (la media de cada grupo) sin recorrer
+    * los pixels: el error de un grupo con respecto a un punto es
+    * su error con respecto a la media mas el peso del grupo por
+    * la distancia cuadratica del punto a la media. Los grupos
+    * vacios no aportan error
+    *
+    * @param anteriores centros con los que se asignaron los pixels
+    * @return error cuadratico con respecto a los nuevos centros
+    */
+   public double calcularErrorMedias(List<Pixel> anteriores) {
+      double total = 0;
+      for (int grupo = 0; grupo < pesos.length; grupo++) {
+         if (pesos[grupo] > 0) {
+            Pixel media = Utilidades.calcularMedia(sumaRojo[grupo],
+               sumaVerde[grupo], sumaAzul[grupo], pesos[grupo]);
+            double error = errores[grupo] -
+               pesos[grupo] * anteriores.get(grupo).distanciaCuadratica(media);
+
+            // los errores de redondeo no pueden dar un error negativo
+            total += Math.max(0, error);
+         }
+      }
+      return total;
+   }
+
+   /**
+    * devuelve el ruido de todos los grupos
+    *
+    * @return suma del ruido de los grupos
+    */
+   public double obtenerRuidoTotal() {
+      double total = 0;
+      for (double ruido : ruidos) {
+         total += ruido;
+      }
+      return total;
+   }
+
+   /**
+    * calcula los nuevos centros como media de cada grupo. Los
+    * grupos vacios conservan el centro anterior
+    *
+    * @param anteriores centros al inicio de la iteracion
+    * @return lista con los nuevos centros
+    */
+   public List<Pixel> obtenerCentros(List<Pixel> anteriores) {
+      List<Pixel> centros = new ArrayList<>(pesos.length);
+      for (int grupo = 0; grupo < pesos.length; grupo++) {
+         if (pesos[grupo] > 0) {
+            centros.add(Utilidades.calcularMedia(sumaRojo[grupo],
+               sumaVerde[grupo], sumaAzul[grupo], pesos[grupo]));
+         } else {
+            centros.add(anteriores.get(grupo));
+         }
+      }
+
+      // se devuelve la lista de centros
+      return centros;
+   }
+}
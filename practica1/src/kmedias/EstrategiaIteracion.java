@@ -0,0 +1,68 @@
+package kmedias;
+
+import imagen.Pixel;
+
+import java.util.List;
+
+/**
+ * clase abstracta para representar de forma generica la
+ * forma de realizar cada iteracion del algoritmo de las
+ * k-medias: asignar cada pixel a un centro y calcular los
+ * nuevos centros
+ */
+public abstract class EstrategiaIteracion {
+   /**
+    * estadisticas de los grupos obtenidas en la ultima
+    * iteracion; puede ser null si la estrategia no las genera
+    */
+   protected EstadisticasIteracion estadisticas = null;
+
+   /**
+    * duracion del calculo de los nuevos centros en la ultima
+    * iteracion, en nanosegundos
+    */
+   protected long duracionActualizacion = 0;
+
+   /**
+    * realiza una iteracion partiendo de los centros al inicio
+    * de la misma y actualizando el array de asignaciones
+    *
+    * @param kmedias objeto sobre el que se itera
+    * @return lista con los centros al final de la iteracion
+    */
+   abstract public List<Pixel> iterar(KMedias kmedias);
+
+   /**
+    * devuelve las estadisticas de la ultima iteracion
+    *
+    * @return estadisticas de los grupos
+    */
+   public EstadisticasIteracion obtenerEstadisticas() {
+      return estadisticas;
+   }
+
+   /**
+    * devuelve la duracion del calculo de los nuevos centros en
+    * la ultima iteracion; el resto de la iteracion corresponde a
+    * la asignacion de los pixels
+    *
+    * @return duracion en nanosegundos
+    */
+   public long obtenerDuracionActualizacion() {
+      return duracionActualizacion;
+   }
+
+   /**
+    * calcula los nuevos centros a partir de las estadisticas de
+    * la iteracion, anotando la duracion del calculo
+    *
+    * @param anteriores centros al inicio de la iteracion
+    * @return lista con los nuevos centros
+    */
+   protected List<Pixel> actualizar(List<Pixel> anteriores) {
+      long inicio = System.nanoTime();
+      List<Pixel> centros = estadisticas.obtenerCentros(anteriores);
+      duracionActualizacion = System.nanoTime() - inicio;
+      return centros;
+   }
+}
@@ -0,0 +1,186 @@
+package kmedias;
+
+import imagen.AlmacenPixels;
+
+import java.util.Arrays;
+
+/**
+ * clase base de las iteraciones que usan cotas de distancia
+ * obtenidas mediante la desigualdad triangular. Guarda los centros
+ * de la iteracion anterior para calcular su desplazamiento y ofrece
+ * las operaciones comunes sobre cotas
+ */
+abstract class IteracionAcotada extends EstrategiaIteracion {
+   /**
+    * margen relativo para compensar los errores de redondeo al
+    * comparar cotas: solo se descarta un centro si la cota lo
+    * garantiza con este margen
+    */
+   private static final double HOLGURA = 1e-9;
+
+   /**
+    * margen absoluto para las comparaciones de cotas
+    */
+   private static final double HOLGURA_ABSOLUTA = 1e-12;
+
+   /**
+    * error relativo maximo que se admite al guardar una cota como
+    * float: el redondeo introduce como mucho 2^-24
+    */
+   private static final double AJUSTE_FLOAT = 0x1p-23;
+
+   /**
+    * componentes rojas de los centros de la iteracion anterior
+    */
+   private double[] rojosPrevios;
+
+   /**
+    * componentes verdes de los centros de la iteracion anterior
+    */
+   private double[] verdesPrevios;
+
+   /**
+    * componentes azules de los centros de la iteracion anterior
+    */
+   private double[] azulesPrevios;
+
+   /**
+    * calcula el desplazamiento de cada centro desde la iteracion
+    * anterior y guarda los centros actuales para la siguiente
+    *
+    * @param rojos  componentes rojas de los centros actuales
+    * @param verdes componentes verdes de los centros actuales
+    * @param azules componentes azules de los centros actuales
+    * @return desplazamiento de cada centro o null si no hay una
+    * iteracion anterior con el mismo numero de centros
+    */
+   protected double[] calcularDesplazamientos(double[] rojos, double[] verdes,
+                                              double[] azules) {
+      double[] desplazamientos = null;
+      if (rojosPrevios != null && rojosPrevios.length == rojos.length) {
+         desplazamientos = new double[rojos.length];
+         for (int j = 0; j < rojos.length; j++) {
+            desplazamientos[j] = distancia(rojos[j], verdes[j], azules[j],
+               rojosPrevios[j], verdesPrevios[j], azulesPrevios[j]);
+         }
+      }
+
+      // se guardan los centros actuales
+      rojosPrevios = rojos;
+      verdesPrevios = verdes;
+      azulesPrevios = azules;
+      return desplazamientos;
+   }
+
+   /**
+    * calcula, para cada centro, la mitad de la distancia al
+    * centro distinto mas proximo y, si se indica, la mitad de la
+    * distancia entre cada par de centros
+    *
+    * @param rojos        componentes rojas de los centros
+    * @param verdes       componentes verdes de los centros
+    * @param azules       componentes azules de los centros
+    * @param mitades      array donde guardar las semidistancias
+    *                     entre pares (posicion j * k + m) o null
+    * @param separaciones array donde guardar la semidistancia
+    *                     al centro mas proximo
+    */
+   static void calcularSeparaciones(double[] rojos, double[] verdes,
+                                    double[] azules, double[] mitades,
+                                    double[] separaciones) {
+      int k = rojos.length;
+      Arrays.fill(separaciones, Double.POSITIVE_INFINITY);
+      for (int j = 0; j < k; j++) {
+         for (int m = j + 1; m < k; m++) {
+            double mitad = 0.5 * distancia(rojos[j], verdes[j], azules[j],
+               rojos[m], verdes[m], azules[m]);
+            if (mitades != null) {
+               mitades[j * k + m] = mitad;
+               mitades[m * k + j] = mitad;
+            }
+            separaciones[j] = Math.min(separaciones[j], mitad);
+            separaciones[m] = Math.min(separaciones[m], mitad);
+         }
+      }
+   }
+
+   /**
+    * comparacion estricta con margen para errores de redondeo
+    *
+    * @param a primer valor
+    * @param b segundo valor
+    * @return true si a es menor que b con el margen indicado
+    */
+   static boolean menor(double a, double b) {
+      return a * (1 + HOLGURA) + HOLGURA_ABSOLUTA < b;
+   }
+
+   /**
+    * redondea hacia abajo un valor no negativo al pasarlo a
+    * float, de forma que siga siendo una cota inferior valida
+    *
+    * @param valor valor a redondear
+    * @return valor float menor o igual que el original
+    */
+   static float redondearAbajo(double valor) {
+      return valor < Float.MIN_NORMAL ? 0 :
+         (float) (valor * (1 - AJUSTE_FLOAT));
+   }
+
+   /**
+    * redondea hacia arriba un valor al pasarlo a float, de forma
+    * que siga siendo una cota superior valida
+    *
+    * @param valor valor a redondear
+    * @return valor float mayor o igual que el original
+    */
+   static float redondearArriba(double valor) {
+      if (Math.abs(valor) < Float.MIN_NORMAL) {
+         return valor > 0 ? Float.MIN_NORMAL : 0;
+      }
+      return (float) (valor * (valor > 0 ? 1 + AJUSTE_FLOAT : 1 - AJUSTE_FLOAT));
+   }
+
+   /**
+    * acumula un pixel en las estadisticas de su grupo, junto con
+    * su distancia al centro del grupo y si ha cambiado de grupo.
+    * Las cotas no bastan para ello, por lo que se calcula esta
+    * unica distancia
+    *
+    * @param almacen  almacen de pixels
+    * @param i        posicion del pixel
+    * @param anterior grupo del pixel antes de la asignacion
+    * @param grupo    grupo asignado
+    * @param rojos    componentes rojas de los centros
+    * @param verdes   componentes verdes de los centros
+    * @param azules   componentes azules de los centros
+    * @param parcial  estadisticas donde acumular
+    */
+   static void acumular(AlmacenPixels almacen, int i, int anterior, int grupo,
+                        double[] rojos, double[] verdes, double[] azules,
+                        EstadisticasIteracion parcial) {
+      parcial.acumular(grupo, almacen.obtenerPeso(i), almacen.obtenerRojo(i),
+         almacen.obtenerVerde(i), almacen.obtenerAzul(i),
+         almacen.distanciaCuadratica(i, rojos[grupo], verdes[grupo],
+            azules[grupo]), grupo != anterior);
+   }
+
+   /**
+    * distancia euclidea entre dos puntos dados por sus componentes
+    *
+    * @param rojo1  componente roja del primer punto
+    * @param verde1 componente verde del primer punto
+    * @param azul1  componente azul del primer punto
+    * @param rojo2  componente roja del segundo punto
+    * @param verde2 componente verde del segundo punto
+    * @param azul2  componente azul del segundo punto
+    * @return distancia entre los puntos
+    */
+   static double distancia(double rojo1, double verde1, double azul1,
+                           double rojo2, double verde2, double azul2) {
+      double dr = rojo1 - rojo2;
+      double dv = verde1 - verde2;
+      double da = azul1 - azul2;
+      return Math.sqrt(dr * dr + dv * dv + da * da);
+   }
+}
@@ -0,0 +1,284 @@
+package kmedias;
+
+import imagen.AlmacenPixels;
+import imagen.ComponentesRGBA;
+import imagen.Pixel;
+import imagen.Utilidades;
+
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.List;
+
+/**
+ * iteracion acelerada mediante la desigualdad triangular (metodo
+ * de Elkan). Para cada pixel se mantiene una cota superior de la
+ * distancia a su centro y una cota inferior de la distancia a
+ * cada uno de los centros; junto con las distancias entre centros
+ * permiten descartar la mayoria de los calculos de distancia en
+ * las iteraciones posteriores a la primera. Las asignaciones
+ * obtenidas son las mismas que con la iteracion de Lloyd: en caso
+ * de empate se elige el centro de menor posicion.
+ * Las cotas se guardan desplazadas con el desplazamiento acumulado
+ * de su centro, de forma que no hay que recorrerlas todas en cada
+ * iteracion para actualizarlas. Aun asi necesita k cotas por
+ * pixel, por lo que su consumo de memoria crece con k.
+ * Los pixels cuyas cotas no bastan se recorren de uno en uno,
+ * sin el nucleo de distancias por bloques; por ello solo es mas
+ * rapida que IteracionLloyd con el nucleo escalar. Con el
+ * vectorial (modulo jdk.incubator.vector) es varias veces mas
+ * lenta
+ */
+public class IteracionElkan extends IteracionAcotada {
+   /**
+    * cota superior de la distancia de cada pixel a su centro,
+    * menos el desplazamiento acumulado del centro
+    */
+   private double[] superiores;
+
+   /**
+    * cotas inferiores de la distancia de cada pixel a cada
+    * centro, mas el desplazamiento acumulado del centro: la
+    * posicion j * n + i corresponde al centro j y al pixel i,
+    * siendo n el numero de pixels. Asi, los pixels consecutivos,
+    * que suelen tener los mismos centros cercanos, consultan
+    * posiciones proximas.
+    * Se guardan redondeadas hacia abajo
+    */
+   private float[] inferiores;
+
+   /**
+    * desplazamiento acumulado de cada centro desde la primera
+    * iteracion
+    */
+   private double[] acumulados;
+
+   /**
+    * realiza una iteracion usando las cotas para evitar calculos
+    * de distancia. Si el objeto dispone de pool de hilos, las
+    * particiones de pixels se procesan en paralelo
+    *
+    * @param kmedias objeto sobre el que se itera
+    * @return lista con los centros al final de la iteracion
+    */
+   @Override
+   public List<Pixel> iterar(KMedias kmedias) {
+      AlmacenPixels almacen = kmedias.obtenerAlmacen();
+      List<Pixel> centros = kmedias.obtenerCentrosT1();
+      int[] asignacion = kmedias.obtenerAsignacion();
+      int numero = almacen.obtenerNumeroPixels();
+      int k = centros.size();
+
+      // se obtienen las componentes de los centros
+      double[] rojos = Utilidades.obtenerComponentes(centros, ComponentesRGBA.ROJO);
+      double[] verdes = Utilidades.obtenerComponentes(centros, ComponentesRGBA.VERDE);
+      double[] azules = Utilidades.obtenerComponentes(centros, ComponentesRGBA.AZUL);
+
+      // distancias entre centros y, para cada centro, la mitad
+      // de la distancia al centro mas proximo
+      double[] mitades = new double[k * k];
+      double[] separaciones = new double[k];
+      calcularSeparaciones(rojos, verdes, azules, mitades, separaciones);
+      int[] vecinos = ordenarVecinos(mitades, k);
+
+      // desplazamiento de cada centro desde la iteracion anterior
+      double[] desplazamientos = calcularDesplazamientos(rojos, verdes, azules);
+
+      EstadisticasIteracion resultado;
+      if (desplazamientos == null || superiores == null ||
+         superiores.length != numero) {
+         // primera iteracion: se calculan todas las distancias
+         if ((long) numero * k > Integer.MAX_VALUE - 8) {
+            throw new IllegalArgumentException("demasiadas cotas para " +
+               numero + " pixels y k = " + k);
+         }
+         superiores = new double[numero];
+         inferiores = new float[numero * k];
+         acumulados = new double[k];
+         resultado = TareaParticion.ejecutar(kmedias.obtenerPool(), numero, k,
+            (inicio, fin, parcial) -> {
+               for (int i = inicio; i < fin; i++) {
+                  int anterior = asignacion[i];
+                  asignarInicial(almacen, i, rojos, verdes, azules, asignacion);
+                  acumular(almacen, i, anterior, asignacion[i], rojos, verdes,
+                     azules, parcial);
+               }
+            });
+      } else {
+         // se acumula el desplazamiento de cada centro
+         for (int j = 0; j < k; j++) {
+            acumulados[j] += desplazamientos[j];
+         }
+
+         resultado = TareaParticion.ejecutar(kmedias.obtenerPool(), numero, k,
+            (inicio, fin, parcial) -> {
+               for (int i = inicio; i < fin; i++) {
+                  int anterior = asignacion[i];
+                  asignar(almacen, i, rojos, verdes, azules, mitades,
+                     separaciones, vecinos, asignacion);
+                  acumular(almacen, i, anterior, asignacion[i], rojos, verdes,
+                     azules, parcial);
+               }
+            });
+      }
+
+      // los nuevos centros se calculan a partir de las sumas
+      estadisticas = resultado;
+      return actualizar(centros);
+   }
+
+   /**
+    * ordena, para cada centro, los demas centros de menor a mayor
+    * distancia. Permite dejar de examinar centros en cuanto su
+    * distancia garantiza que no pueden estar mas cerca del pixel
+    *
+    * @param mitades semidistancias entre pares de centros
+    * @param k       numero de centros
+    * @return array con los centros ordenados: la fila j (posiciones
+    * j * k a j * k + k - 1) contiene los vecinos del centro j
+    */
+   private static int[] ordenarVecinos(double[] mitades, int k) {
+      int[] vecinos = new int[k * k];
+      Integer[] orden = new Integer[k];
+      for (int j = 0; j < k; j++) {
+         int base = j * k;
+         for (int m = 0; m < k; m++) {
+            orden[m] = m;
+         }
+         Arrays.sort(orden, Comparator.comparingDouble(m -> mitades[base + m]));
+         for (int m = 0; m < k; m++) {
+            vecinos[base + m] = orden[m];
+         }
+      }
+      return vecinos;
+   }
+
+   /**
+    * asigna un pixel calculando la distancia a todos los centros,
+    * inicializando sus cotas
+    *
+    * @param almacen    almacen de pixels
+    * @param i          posicion del pixel
+    * @param rojos      componentes rojas de los centros
+    * @param verdes     componentes verdes de los centros
+    * @param azules     componentes azules de los centros
+    * @param asignacion array de asignaciones
+    */
+   private void asignarInicial(AlmacenPixels almacen, int i, double[] rojos,
+                               double[] verdes, double[] azules,
+                               int[] asignacion) {
+      int k = rojos.length;
+      int n = superiores.length;
+      int minimo = 0;
+      double minimaDistancia = Double.POSITIVE_INFINITY;
+      for (int j = 0; j < k; j++) {
+         double distancia = almacen.distanciaCuadratica(i, rojos[j],
+            verdes[j], azules[j]);
+         inferiores[j * n + i] = redondearAbajo(Math.sqrt(distancia));
+         if (minimaDistancia > distancia) {
+            minimaDistancia = distancia;
+            minimo = j;
+         }
+      }
+      asignacion[i] = minimo;
+      superiores[i] = Math.sqrt(minimaDistancia);
+   }
+
+   /**
+    * asigna un pixel a su centro mas cercano usando las cotas
+    * para evitar calculos de distancia. Solo se examinan los
+    * centros cuya distancia al centro asignado no supera el doble
+    * de la cota superior, recorriendolos en orden de distancia
+    *
+    * @param almacen      almacen de pixels
+    * @param i            posicion del pixel
+    * @param rojos        componentes rojas de los centros
+    * @param verdes       componentes verdes de los centros
+    * @param azules       componentes azules de los centros
+    * @param mitades      semidistancias entre pares de centros
+    * @param separaciones semidistancia de cada centro al mas
+    *                     proximo
+    * @param vecinos      centros ordenados por distancia a cada
+    *                     centro
+    * @param asignacion   array de asignaciones
+    */
+   private void asignar(AlmacenPixels almacen, int i, double[] rojos,
+                        double[] verdes, double[] azules, double[] mitades,
+                        double[] separaciones, int[] vecinos,
+                        int[] asignacion) {
+      int k = rojos.length;
+      int inicial = asignacion[i];
+      double cotaInicial = superiores[i] + acumulados[inicial];
+
+      // si la cota superior no alcanza la mitad de la distancia
+      // al centro mas proximo, el pixel no cambia de grupo
+      if (menor(cotaInicial, separaciones[inicial])) {
+         return;
+      }
+
+      int n = superiores.length;
+      int grupo = inicial;
+      double superior = cotaInicial;
+      boolean ajustada = false;
+      double distanciaGrupo = 0;
+      for (int m = 0; m < k; m++) {
+         int j = vecinos[inicial * k + m];
+         if (j == inicial) {
+            continue;
+         }
+
+         // los centros restantes estan a mas del doble de la
+         // cota superior del centro inicial, por lo que ninguno
+         // puede estar mas cerca
+         if (menor(cotaInicial, mitades[inicial * k + j])) {
+            break;
+         }
+
+         // la cota inferior se corrige con el desplazamiento del
+         // centro
+         double inferior = inferiores[j * n + i] - acumulados[j];
+         if (menor(superior, inferior)) {
+            continue;
+         }
+
+         // antes de calcular la primera distancia se ajusta la
+         // cota superior con la distancia real
+         if (!ajustada) {
+            distanciaGrupo = almacen.distanciaCuadratica(i, rojos[inicial],
+               verdes[inicial], azules[inicial]);
+            cotaInicial = Math.sqrt(distanciaGrupo);
+            superior = cotaInicial;
+            inferiores[inicial * n + i] =
+               redondearAbajo(superior + acumulados[inicial]);
+            ajustada = true;
+            if (menor(cotaInicial, mitades[inicial * k + j])) {
+               break;
+            }
+            if (menor(superior, inferior)) {
+               continue;
+            }
+         }
+
+         // se calcula la distancia real al centro j
+         double distancia = almacen.distanciaCuadratica(i, rojos[j],
+            verdes[j], azules[j]);
+         inferiores[j * n + i] =
+            redondearAbajo(Math.sqrt(distancia) + acumulados[j]);
+
+         // en caso de empate gana el centro de menor posicion,
+         // igual que en la iteracion de Lloyd
+         if (distancia < distanciaGrupo ||
+            (distancia == distanciaGrupo && j < grupo)) {
+            grupo = j;
+            distanciaGrupo = distancia;
+            superior = Math.sqrt(distancia);
+         }
+      }
+
+      // si se ha calculado alguna distancia se guardan la
+      // asignacion y la cota superior
+      if (ajustada) {
+         asignacion[i] = grupo;
+         superiores[i] = superior - acumulados[grupo];
+      }
+   }
+}
@@ -0,0 +1,219 @@
+package kmedias;
+
+import imagen.AlmacenPixels;
+import imagen.ComponentesRGBA;
+import imagen.Pixel;
+import imagen.Utilidades;
+
+import java.util.List;
+
+/**
+ * iteracion acelerada con una unica cota inferior por pixel
+ * (metodo de Hamerly). Para cada pixel se mantiene una cota
+ * superior de la distancia a su centro y una cota inferior de la
+ * distancia al segundo centro mas cercano; si la cota superior no
+ * alcanza la inferior ni la mitad de la distancia del centro al
+ * centro mas proximo, el pixel no cambia de grupo y no se calcula
+ * ninguna distancia. La memoria adicional es de dos float por
+ * pixel, independientemente de k. Las asignaciones obtenidas son
+ * las mismas que con la iteracion de Lloyd. El ahorro se mide
+ * frente al nucleo de distancias escalar: los pixels que hay que
+ * revisar se tratan de uno en uno, y con el nucleo vectorial
+ * IteracionLloyd resulta mas rapida
+ */
+public class IteracionHamerly extends IteracionAcotada {
+   /**
+    * cota superior de la distancia de cada pixel a su centro,
+    * menos el desplazamiento acumulado del centro. Se guarda
+    * redondeada hacia arriba
+    */
+   private float[] superiores;
+
+   /**
+    * cota inferior de la distancia de cada pixel al resto de
+    * centros, mas el desplazamiento acumulado de los demas centros
+    * con respecto al suyo. Se guarda redondeada hacia abajo
+    */
+   private float[] inferiores;
+
+   /**
+    * desplazamiento acumulado de cada centro desde la primera
+    * iteracion
+    */
+   private double[] acumulados;
+
+   /**
+    * para cada centro, suma en todas las iteraciones del mayor
+    * desplazamiento de los demas centros. Permite corregir las
+    * cotas inferiores sin recorrerlas en cada iteracion
+    */
+   private double[] acumuladosOtros;
+
+   /**
+    * realiza una iteracion usando las cotas para evitar calculos
+    * de distancia. Si el objeto dispone de pool de hilos, las
+    * particiones de pixels se procesan en paralelo
+    *
+    * @param kmedias objeto sobre el que se itera
+    * @return lista con los centros al final de la iteracion
+    */
+   @Override
+   public List<Pixel> iterar(KMedias kmedias) {
+      AlmacenPixels almacen = kmedias.obtenerAlmacen();
+      List<Pixel> centros = kmedias.obtenerCentrosT1();
+      int[] asignacion = kmedias.obtenerAsignacion();
+      int numero = almacen.obtenerNumeroPixels();
+      int k = centros.size();
+
+      // se obtienen las componentes de los centros
+      double[] rojos = Utilidades.obtenerComponentes(centros, ComponentesRGBA.ROJO);
+      double[] verdes = Utilidades.obtenerComponentes(centros, ComponentesRGBA.VERDE);
+      double[] azules = Utilidades.obtenerComponentes(centros, ComponentesRGBA.AZUL);
+
+      // mitad de la distancia de cada centro al mas proximo
+      double[] separaciones = new double[k];
+      calcularSeparaciones(rojos, verdes, azules, null, separaciones);
+
+      // desplazamiento de cada centro desde la iteracion anterior
+      double[] desplazamientos = calcularDesplazamientos(rojos, verdes, azules);
+
+      if (desplazamientos == null || superiores == null ||
+         superiores.length != numero) {
+         // primera iteracion: las cotas se obtienen al calcular
+         // todas las distancias
+         superiores = new float[numero];
+         inferiores = new float[numero];
+         acumulados = new double[k];
+         acumuladosOtros = new double[k];
+      } else {
+         acumularDesplazamientos(desplazamientos);
+      }
+
+      // se asigna cada pixel y se acumulan las sumas de su grupo
+      boolean inicial = desplazamientos == null;
+      estadisticas = TareaParticion.ejecutar(kmedias.obtenerPool(), numero, k,
+         (inicio, fin, parcial) -> {
+            for (int i = inicio; i < fin; i++) {
+               int anterior = asignacion[i];
+               if (inicial) {
+                  asignarTodos(almacen, i, rojos, verdes, azules, asignacion);
+               } else {
+                  asignar(almacen, i, rojos, verdes, azules, separaciones,
+                     asignacion);
+               }
+               acumular(almacen, i, anterior, asignacion[i], rojos, verdes,
+                  azules, parcial);
+            }
+         });
+
+      // los nuevos centros se calculan a partir de las sumas
+      return actualizar(centros);
+   }
+
+   /**
+    * acumula el desplazamiento de cada centro y, para cada centro,
+    * el mayor desplazamiento de los demas
+    *
+    * @param desplazamientos desplazamiento de cada centro en la
+    *                        ultima iteracion
+    */
+   private void acumularDesplazamientos(double[] desplazamientos) {
+      // se obtienen los dos mayores desplazamientos
+      int mayor = 0;
+      double segundo = 0;
+      for (int j = 1; j < desplazamientos.length; j++) {
+         if (desplazamientos[j] > desplazamientos[mayor]) {
+            segundo = desplazamientos[mayor];
+            mayor = j;
+         } else if (desplazamientos[j] > segundo) {
+            segundo = desplazamientos[j];
+         }
+      }
+
+      // para el centro que mas se ha movido, el mayor de los
+      // demas es el segundo
+      for (int j = 0; j < desplazamientos.length; j++) {
+         acumulados[j] += desplazamientos[j];
+         acumuladosOtros[j] += j == mayor ? segundo : desplazamientos[mayor];
+      }
+   }
+
+   /**
+    * asigna un pixel usando las cotas; si no permiten descartar
+    * el cambio de grupo se calculan todas las distancias
+    *
+    * @param almacen      almacen de pixels
+    * @param i            posicion del pixel
+    * @param rojos        componentes rojas de los centros
+    * @param verdes       componentes verdes de los centros
+    * @param azules       componentes azules de los centros
+    * @param separaciones semidistancia de cada centro al mas
+    *                     proximo
+    * @param asignacion   array de asignaciones
+    */
+   private void asignar(AlmacenPixels almacen, int i, double[] rojos,
+                        double[] verdes, double[] azules,
+                        double[] separaciones, int[] asignacion) {
+      int grupo = asignacion[i];
+      double superior = superiores[i] + acumulados[grupo];
+      double limite = Math.max(separaciones[grupo],
+         inferiores[i] - acumuladosOtros[grupo]);
+
+      // si la cota superior no alcanza el limite, el pixel no
+      // cambia de grupo
+      if (menor(superior, limite)) {
+         return;
+      }
+
+      // se ajusta la cota superior con la distancia real y se
+      // vuelve a comprobar
+      superior = Math.sqrt(almacen.distanciaCuadratica(i, rojos[grupo],
+         verdes[grupo], azules[grupo]));
+      if (menor(superior, limite)) {
+         superiores[i] = redondearArriba(superior - acumulados[grupo]);
+         return;
+      }
+
+      // en otro caso se calculan todas las distancias
+      asignarTodos(almacen, i, rojos, verdes, azules, asignacion);
+   }
+
+   /**
+    * asigna un pixel calculando la distancia a todos los centros
+    * y obtiene sus cotas: la distancia al centro mas cercano y al
+    * segundo mas cercano. En caso de empate se elige el centro de
+    * menor posicion, igual que en la iteracion de Lloyd
+    *
+    * @param almacen    almacen de pixels
+    * @param i          posicion del pixel
+    * @param rojos      componentes rojas de los centros
+    * @param verdes     componentes verdes de los centros
+    * @param azules     componentes azules de los centros
+    * @param asignacion array de asignaciones
+    */
+   private void asignarTodos(AlmacenPixels almacen, int i, double[] rojos,
+                             double[] verdes, double[] azules,
+                             int[] asignacion) {
+      int minimo = 0;
+      double minimaDistancia = Double.POSITIVE_INFINITY;
+      double segundaDistancia = Double.POSITIVE_INFINITY;
+      for (int j = 0; j < rojos.length; j++) {
+         double distancia = almacen.distanciaCuadratica(i, rojos[j],
+            verdes[j], azules[j]);
+         if (minimaDistancia > distancia) {
+            segundaDistancia = minimaDistancia;
+            minimaDistancia = distancia;
+            minimo = j;
+         } else if (segundaDistancia > distancia) {
+            segundaDistancia = distancia;
+         }
+      }
+
+      // se guardan la asignacion y las cotas
+      asignacion[i] = minimo;
+      superiores[i] = redondearArriba(Math.sqrt(minimaDistancia) -
+         acumulados[minimo]);
+      inferiores[i] = redondearAbajo(Math.sqrt(segundaDistancia) +
+         acumuladosOtros[minimo]);
+   }
+}
@@ -0,0 +1,70 @@
+package kmedias;
+
+import imagen.AlmacenPixels;
+import imagen.ComponentesRGBA;
+import imagen.Pixel;
+import imagen.Utilidades;
+
+import java.util.List;
+
+/**
+ * iteracion de Lloyd en un unico recorrido por particion: se
+ * determina el centro mas cercano de cada pixel y se acumulan sus
+ * componentes en las sumas del grupo, sin crear listas de pixels
+ * por grupo.
+ * Los nuevos centros se obtienen directamente de las sumas
+ */
+public class IteracionLloyd extends EstrategiaIteracion {
+   /**
+    * copia de las asignaciones al inicio de la iteracion, para
+    * contar los pixels que cambian de grupo. Se reserva una vez y
+    * se reutiliza; cada particion usa solo sus posiciones
+    */
+   private int[] anteriores;
+
+   /**
+    * realiza una iteracion asignando y acumulando en el mismo
+    * recorrido. Si el objeto dispone de pool de hilos, las
+    * particiones de pixels se procesan en paralelo
+    *
+    * @param kmedias objeto sobre el que se itera
+    * @return lista con los centros al final de la iteracion
+    */
+   @Override
+   public List<Pixel> iterar(KMedias kmedias) {
+      AlmacenPixels almacen = kmedias.obtenerAlmacen();
+      List<Pixel> centros = kmedias.obtenerCentrosT1();
+      int[] asignacion = kmedias.obtenerAsignacion();
+      if (anteriores == null || anteriores.length != asignacion.length) {
+         anteriores = new int[asignacion.length];
+      }
+
+      // se obtienen las componentes de los centros
+      double[] rojos = Utilidades.obtenerComponentes(centros, ComponentesRGBA.ROJO);
+      double[] verdes = Utilidades.obtenerComponentes(centros, ComponentesRGBA.VERDE);
+      double[] azules = Utilidades.obtenerComponentes(centros, ComponentesRGBA.AZUL);
+
+      // cada particion asigna sus pixels con el nucleo de
+      // distancias y despues acumula las sumas, la distancia de
+      // cada pixel a su centro y si ha cambiado de grupo
+      estadisticas = TareaParticion.ejecutar(kmedias.obtenerPool(),
+         almacen.obtenerNumeroPixels(), centros.size(),
+         (inicio, fin, parcial) -> {
+            System.arraycopy(asignacion, inicio, anteriores, inicio,
+               fin - inicio);
+            almacen.obtenerMasCercanos(inicio, fin, rojos, verdes, azules,
+               asignacion);
+            for (int i = inicio; i < fin; i++) {
+               int grupo = asignacion[i];
+               parcial.acumular(grupo, almacen.obtenerPeso(i),
+                  almacen.obtenerRojo(i), almacen.obtenerVerde(i),
+                  almacen.obtenerAzul(i), almacen.distanciaCuadratica(i,
+                     rojos[grupo], verdes[grupo], azules[grupo]),
+                  grupo != anteriores[i]);
+            }
+         });
+
+      // los nuevos centros se calculan a partir de las sumas
+      return actualizar(centros);
+   }
+}
@@ -0,0 +1,121 @@
+package kmedias;
+
+import imagen.AlmacenPixels;
+import imagen.ComponentesRGBA;
+import imagen.Pixel;
+import imagen.Utilidades;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.SplittableRandom;
+
+/**
+ * iteracion por mini-lotes: en cada iteracion se extrae una
+ * muestra aleatoria de pixels, se asigna cada uno a su centro
+ * mas cercano y se desplazan los centros hacia los pixels
+ * asignados. No recorre todos los pixels, por lo que cada
+ * iteracion tiene un coste que depende del tamaño del lote y no
+ * del de la imagen. Los centros obtenidos son una aproximacion
+ * de los de la iteracion de Lloyd
+ */
+public class IteracionMiniLotes extends EstrategiaIteracion {
+   /**
+    * numero de pixels de cada lote
+    */
+   private final int tamanoLote;
+
+   /**
+    * forma de calcular la tasa de aprendizaje
+    */
+   private final ModoAprendizaje modoAprendizaje;
+
+   /**
+    * tasa de aprendizaje para el modo constante
+    */
+   private final double tasaAprendizaje;
+
+   /**
+    * numero de pixels asignados a cada centro en todos los
+    * lotes procesados
+    */
+   private long[] contadores;
+
+   /**
+    * constructor de la clase
+    *
+    * @param opciones opciones de ejecucion con el tamaño del lote
+    *                 y la tasa de aprendizaje
+    */
+   public IteracionMiniLotes(OpcionesKMedias opciones) {
+      tamanoLote = opciones.obtenerTamanoLote();
+      modoAprendizaje = opciones.obtenerModoAprendizaje();
+      tasaAprendizaje = opciones.obtenerTasaAprendizaje();
+   }
+
+   /**
+    * realiza una iteracion sobre un lote de pixels elegidos al
+    * azar. La asignacion del lote se reparte en el pool de hilos,
+    * si lo hay; la actualizacion de los centros se hace despues,
+    * pixel a pixel, en el orden del lote
+    *
+    * @param kmedias objeto sobre el que se itera
+    * @return lista con los centros al final de la iteracion
+    */
+   @Override
+   public List<Pixel> iterar(KMedias kmedias) {
+      AlmacenPixels almacen = kmedias.obtenerAlmacen();
+      List<Pixel> centros = kmedias.obtenerCentrosT1();
+      int k = centros.size();
+      if (contadores == null || contadores.length != k) {
+         contadores = new long[k];
+      }
+
+      // se obtienen las componentes de los centros
+      double[] rojos = Utilidades.obtenerComponentes(centros, ComponentesRGBA.ROJO);
+      double[] verdes = Utilidades.obtenerComponentes(centros, ComponentesRGBA.VERDE);
+      double[] azules = Utilidades.obtenerComponentes(centros, ComponentesRGBA.AZUL);
+
+      // se extrae el lote: cada pixel de la imagen tiene la misma
+      // probabilidad, tambien si el almacen es un histograma
+      int[] lote = new int[tamanoLote];
+      long total = almacen.obtenerPesoTotal();
+      SplittableRandom generador = kmedias.obtenerGenerador();
+      for (int b = 0; b < tamanoLote; b++) {
+         lote[b] = almacen.localizar(generador.nextLong(total));
+      }
+
+      // se asigna cada pixel del lote a su centro mas cercano
+      int[] grupos = new int[tamanoLote];
+      estadisticas = TareaParticion.ejecutar(kmedias.obtenerPool(), tamanoLote, k,
+         (inicio, fin, parcial) -> {
+            for (int b = inicio; b < fin; b++) {
+               int i = lote[b];
+               grupos[b] = almacen.obtenerMasCercano(i, rojos, verdes, azules);
+               parcial.acumular(grupos[b], 1, almacen.obtenerRojo(i),
+                  almacen.obtenerVerde(i), almacen.obtenerAzul(i));
+            }
+         });
+
+      // se desplaza cada centro hacia los pixels que se le han
+      // asignado
+      long inicio = System.nanoTime();
+      for (int b = 0; b < tamanoLote; b++) {
+         int i = lote[b];
+         int grupo = grupos[b];
+         contadores[grupo]++;
+         double tasa = modoAprendizaje == ModoAprendizaje.CONTADORES ?
+            1.0 / contadores[grupo] : tasaAprendizaje;
+         rojos[grupo] += tasa * (almacen.obtenerRojo(i) - rojos[grupo]);
+         verdes[grupo] += tasa * (almacen.obtenerVerde(i) - verdes[grupo]);
+         azules[grupo] += tasa * (almacen.obtenerAzul(i) - azules[grupo]);
+      }
+
+      // se crean los nuevos centros
+      List<Pixel> nuevos = new ArrayList<>(k);
+      for (int j = 0; j < k; j++) {
+         nuevos.add(new Pixel(rojos[j], verdes[j], azules[j]));
+      }
+      duracionActualizacion = System.nanoTime() - inicio;
+      return nuevos;
+   }
+}
@@ -1,16 +1,21 @@
 package kmedias;
 
 import convergencia.*;
+import imagen.AlmacenPixels;
+import imagen.ComponentesRGBA;
 import imagen.Utilidades;
 import inicializacion.*;
 import imagen.Imagen;
 import imagen.Pixel;
+import imagen.TablaColores;
+import monitorizacion.*;
 
 import java.util.ArrayList;
-import java.util.HashMap;
+import java.util.Arrays;
 import java.util.List;
-import java.util.Map;
-import java.util.function.Function;
+import java.util.SplittableRandom;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinTask;
 import java.util.stream.Collectors;
 import java.util.stream.IntStream;
 
@@ -27,16 +32,28 @@ public class KMedias {
    private final Imagen imagen;
 
    /**
-    * coleccion de datos sobre los pixels que componen
-    * la imagen
+    * almacen por columnas con las componentes de los pixels
+    * que componen la imagen
     */
-   private final List<Pixel> pixels;
+   private final AlmacenPixels almacen;
 
    /**
     * numero de grupos a formar
     */
    private final int k;
 
+   /**
+    * numero de hilos a usar en el recorrido de los pixels
+    */
+   private final int hilos;
+
+   /**
+    * pool de hilos para el recorrido en paralelo de los pixels;
+    * solo existe durante la ejecucion de agrupar y si se usa
+    * mas de un hilo
+    */
+   private ForkJoinPool pool;
+
    /**
     * atributo para delegar el comportamiento de inicializacion
     */
@@ -48,17 +65,23 @@ public class KMedias {
     */
    private final EstrategiaConvergencia parada;
 
+   /**
+    * atributo para delegar la forma de realizar cada iteracion;
+    * vale null si no se itera (modo NINGUNA)
+    */
+   private final EstrategiaIteracion motor;
+
    /**
     * contador de iteraciones ejecutadas por el algoritmo
     */
    private int iteraciones;
 
    /**
-    * clasificacion de pixels en los grupos. Las claves
-    * son los centroides y los valores las listas de
-    * pixels propias de cada grupo
+    * clasificacion de pixels en los grupos: para cada pixel
+    * del almacen se guarda la posicion de su centroide en la
+    * lista de centros al inicio de la iteracion
     */
-   private Map<Pixel, List<Pixel>> clasificacion;
+   private final int[] asignacion;
 
    /**
     * lista de centroides de la iteracion al inicio
@@ -77,6 +100,47 @@ public class KMedias {
     */
    private double medidaConvergencia;
 
+   /**
+    * generador de numeros aleatorios propio de esta ejecucion,
+    * para las estrategias que lo necesiten
+    */
+   private final SplittableRandom generador;
+
+   /**
+    * ejecuciones independientes adicionales que se realizan a
+    * la vez que esta; vacia si no se han pedido reinicios
+    */
+   private final List<KMedias> reinicios;
+
+   /**
+    * ejecucion cuyo resultado se ha conservado: este mismo
+    * objeto o el reinicio de menor inercia
+    */
+   private KMedias ganador;
+
+   /**
+    * suma de las distancias cuadraticas de los pixels a su
+    * centro final; vale NaN mientras no se calcula
+    */
+   private double inercia;
+
+   /**
+    * suma de la sennal de todos los pixels, que no depende de
+    * los centros; vale NaN mientras no se calcula
+    */
+   private double sennal;
+
+   /**
+    * instante de comienzo de la ejecucion, en nanosegundos
+    */
+   private long inicio;
+
+   /**
+    * traza de las iteraciones de esta ejecucion; null si no se
+    * anota
+    */
+   private final TrazaIteraciones traza;
+
    /**
     * constructor privado para evitar creacion de
     * objetos que no pase por el metodo factoria
@@ -85,20 +149,37 @@ public class KMedias {
     * @param k             numero de colores a considerar
     * @param inicializador estrategia de inicializacion
     * @param parada        estretagia de convergencia
+    * @param motor         estrategia de iteracion
+    * @param opciones      opciones adicionales de ejecucion
+    * @param almacen       almacen de pixels de la imagen, que
+    *                      pueden compartir varias ejecuciones
+    * @param generador     generador de numeros aleatorios
     */
    private KMedias(Imagen imagen, int k, EstrategiaInicializacion inicializador,
-                   EstrategiaConvergencia parada) {
+                   EstrategiaConvergencia parada, EstrategiaIteracion motor,
+                   OpcionesKMedias opciones, AlmacenPixels almacen,
+                   SplittableRandom generador) {
       // se asigna valor a los datos miembro
       this.imagen = imagen;
       this.k = k;
       this.inicializador = inicializador;
       this.parada = parada;
-
-      // se obtienen los puntos de la imagen. Esto lo hace
-      // el metodo generarPixels, que pasa de la descripcion
-      // de los indices de color (de 0 a 255) a niveles de
-      // RGB
-      pixels = imagen.convertirIndicesColoresPixels();
+      this.motor = motor;
+      this.hilos = opciones.obtenerHilos();
+      this.almacen = almacen;
+      this.generador = generador;
+      reinicios = new ArrayList<>();
+      ganador = this;
+      inercia = Double.NaN;
+      sennal = Double.NaN;
+      traza = opciones.obtenerCapacidadTraza() > 0 ?
+              new TrazaIteraciones(opciones.obtenerCapacidadTraza()) : null;
+
+      // se reserva el array de asignaciones, reutilizado en
+      // todas las iteraciones. Al principio ningun pixel tiene
+      // grupo, de forma que en la primera iteracion cambian todos
+      asignacion = new int[almacen.obtenerNumeroPixels()];
+      Arrays.fill(asignacion, -1);
 
       // se inicializa el contador de iteraciones
       iteraciones = 1;
@@ -113,6 +194,7 @@ public class KMedias {
     * @param modoConvergencia   estretegia de convergencia
     * @param maxIteraciones     maximo numero de iteraciones a realizar
     * @param umbral             umbral a considerar para la convergencia
+    *                           (milisegundos en la parada por tiempo)
     * @param imagen             imagen a analizar
     * @return objeto de la clase KMedias construido de acuerdo
     * a la parametrizacion pasada como argumento
@@ -121,6 +203,83 @@ public class KMedias {
                                   ModoInicializacion modoInicializacion,
                                   ModoConvergencia modoConvergencia,
                                   int maxIteraciones, double umbral, Imagen imagen) {
+      return factoria(k, modoInicializacion, modoConvergencia,
+              maxIteraciones, umbral, imagen, new OpcionesKMedias());
+   }
+
+   /**
+    * metodo factoria con opciones adicionales de ejecucion
+    *
+    * @param k                  numero de colores a considerar
+    * @param modoInicializacion estretegia de inicializacion
+    * @param modoConvergencia   estretegia de convergencia
+    * @param maxIteraciones     maximo numero de iteraciones a realizar
+    * @param umbral             umbral a considerar para la convergencia
+    *                           (milisegundos en la parada por tiempo)
+    * @param imagen             imagen a analizar
+    * @param opciones           opciones adicionales de ejecucion
+    * @return objeto de la clase KMedias construido de acuerdo
+    * a la parametrizacion pasada como argumento
+    */
+   public static KMedias factoria(int k,
+                                  ModoInicializacion modoInicializacion,
+                                  ModoConvergencia modoConvergencia,
+                                  int maxIteraciones, double umbral, Imagen imagen,
+                                  OpcionesKMedias opciones) {
+      // se obtienen los puntos de la imagen. Esto lo hace
+      // el almacen de pixels, que pasa de la descripcion
+      // de los indices de color (de 0 a 255) a niveles de
+      // RGB. Si se indica en las opciones, se trabaja con el
+      // histograma de colores en lugar de con todos los pixels.
+      // Todas las ejecuciones comparten el almacen
+      EventoConversion conversion = new EventoConversion();
+      conversion.begin();
+      AlmacenPixels almacen;
+      if(opciones.obtenerHistograma()){
+         almacen = AlmacenPixels.crearHistograma(imagen);
+      }
+      else{
+         almacen = new AlmacenPixels(imagen);
+      }
+      conversion.end();
+
+      // cada ejecucion recibe un generador independiente,
+      // obtenido a partir de la semilla
+      SplittableRandom raiz = new SplittableRandom(opciones.obtenerSemilla());
+
+      // se crea el objeto con sus propias estrategias
+      KMedias kmedias = new KMedias(imagen, k,
+              crearInicializador(modoInicializacion),
+              crearParada(modoConvergencia, maxIteraciones, umbral),
+              crearMotor(opciones), opciones, almacen, raiz.split());
+
+      // se crean los reinicios, cada uno con sus estrategias
+      for(int reinicio=1; reinicio < opciones.obtenerReinicios(); reinicio++){
+         kmedias.reinicios.add(new KMedias(imagen, k,
+                 crearInicializador(modoInicializacion),
+                 crearParada(modoConvergencia, maxIteraciones, umbral),
+                 crearMotor(opciones), opciones, almacen, raiz.split()));
+      }
+
+      // se registra la conversion, con las estrategias elegidas
+      if(conversion.shouldCommit()){
+         conversion.asignarEntradas(almacen.obtenerNumeroPixels());
+         kmedias.describir(conversion);
+         conversion.commit();
+      }
+
+      // se devuelve el objeto creado
+      return kmedias;
+   }
+
+   /**
+    * crea la estrategia de inicializacion
+    *
+    * @param modoInicializacion modo de inicializacion
+    * @return estrategia creada
+    */
+   private static EstrategiaInicializacion crearInicializador(
+           ModoInicializacion modoInicializacion) {
       EstrategiaInicializacion inicializador = null;
       switch (modoInicializacion) {
          case MUESTREO_ALEATORIO:
@@ -132,8 +291,30 @@ public class KMedias {
          case MUESTREO_ESTRATIFICADO:
             inicializador = new MuestreoEstratificado();
             break;
+         case KMEDIAS_PARALELO:
+            inicializador = new KMediasParalelo();
+            break;
+         case CORTE_MEDIANA:
+            inicializador = new SeleccionCorteMediana();
+            break;
+         case ARBOL_OCTAL:
+            inicializador = new SeleccionArbolOctal();
+            break;
       }
+      return inicializador;
+   }
 
+   /**
+    * crea la estrategia de convergencia
+    *
+    * @param modoConvergencia modo de convergencia
+    * @param maxIteraciones   maximo numero de iteraciones a realizar
+    * @param umbral           umbral a considerar para la convergencia
+    * @return estrategia creada
+    */
+   private static EstrategiaConvergencia crearParada(
+           ModoConvergencia modoConvergencia, int maxIteraciones,
+           double umbral) {
       EstrategiaConvergencia parada = null;
       switch (modoConvergencia) {
          case ITERACIONES:
@@ -145,10 +326,45 @@ public class KMedias {
          case RUIDO:
             parada = new ConvergenciaRuido(umbral, maxIteraciones);
             break;
+         case CAMBIOS:
+            parada = new ConvergenciaCambios(umbral, maxIteraciones);
+            break;
+         case TIEMPO:
+            parada = new ConvergenciaTiempo(umbral, maxIteraciones);
+            break;
       }
+      return parada;
+   }
 
-      // se crea el objeto y se devuelve
-      return new KMedias(imagen, k, inicializador, parada);
+   /**
+    * crea la estrategia de iteracion
+    *
+    * @param opciones opciones de ejecucion con el modo de iteracion
+    * @return estrategia creada
+    */
+   private static EstrategiaIteracion crearMotor(OpcionesKMedias opciones) {
+      EstrategiaIteracion motor = null;
+      switch (opciones.obtenerModoIteracion()) {
+         case CLASICA:
+            motor = new IteracionClasica();
+            break;
+         case LLOYD:
+            motor = new IteracionLloyd();
+            break;
+         case ELKAN:
+            motor = new IteracionElkan();
+            break;
+         case HAMERLY:
+            motor = new IteracionHamerly();
+            break;
+         case MINI_LOTES:
+            motor = new IteracionMiniLotes(opciones);
+            break;
+         case NINGUNA:
+            // sin estrategia: no se itera
+            break;
+      }
+      return motor;
    }
 
    /**
@@ -161,12 +377,13 @@ public class KMedias {
    }
 
    /**
-    * accede al atributo con la lista de pixels
+    * accede al almacen de pixels. Las estrategias deben
+    * usarlo solo para lectura
     *
-    * @return devuelve la lista de pixels
+    * @return devuelve el almacen de pixels
     */
-   public List<Pixel> obtenerPixels() {
-      return pixels;
+   public AlmacenPixels obtenerAlmacen() {
+      return almacen;
    }
 
    /**
@@ -178,6 +395,101 @@ public class KMedias {
       return k;
    }
 
+   /**
+    * da acceso al array con el grupo asignado a cada pixel
+    * del almacen, para las estrategias de iteracion
+    *
+    * @return array de asignaciones
+    */
+   int[] obtenerAsignacion() {
+      return asignacion;
+   }
+
+   /**
+    * da acceso al pool de hilos, para las estrategias de
+    * inicializacion e iteracion
+    *
+    * @return pool de hilos o null si la ejecucion es secuencial
+    */
+   public ForkJoinPool obtenerPool() {
+      return pool;
+   }
+
+   /**
+    * obtiene las estadisticas de los grupos calculadas en la
+    * ultima iteracion por la estrategia de iteracion
+    *
+    * @return estadisticas o null si la estrategia no las genera
+    */
+   public EstadisticasIteracion obtenerEstadisticas() {
+      return ganador.motor == null ? null :
+              ganador.motor.obtenerEstadisticas();
+   }
+
+   /**
+    * da acceso al generador de numeros aleatorios de esta
+    * ejecucion, para las estrategias que lo necesiten. Cada
+    * reinicio tiene el suyo
+    *
+    * @return generador de numeros aleatorios
+    */
+   public SplittableRandom obtenerGenerador() {
+      return generador;
+   }
+
+   /**
+    * obtiene la inercia del resultado: suma, para todos los
+    * pixels de la imagen, de la distancia cuadratica a su centro
+    * final mas cercano. Se calcula la primera vez que se pide,
+    * una vez realizado el agrupamiento
+    *
+    * @return valor de la inercia
+    */
+   public double obtenerInercia() {
+      if(Double.isNaN(inercia)){
+         inercia = calcularInercia();
+      }
+      return inercia;
+   }
+
+   /**
+    * obtiene la sennal de la imagen: suma, para todos los
+    * pixels, de su distancia al negro. Se calcula una sola vez,
+    * la primera vez que se pide
+    *
+    * @return valor de la sennal
+    */
+   public double obtenerSennal() {
+      if(Double.isNaN(sennal)){
+         sennal = IntStream.range(0, almacen.obtenerNumeroPixels())
+                 .mapToDouble(i -> almacen.obtenerPeso(i) *
+                         almacen.calcularSennal(i))
+                 .sum();
+      }
+      return sennal;
+   }
+
+   /**
+    * obtiene la traza de las iteraciones del resultado: si hay
+    * reinicios, la de la ejecucion conservada
+    *
+    * @return traza o null si no se ha pedido
+    */
+   public TrazaIteraciones obtenerTraza() {
+      return ganador.traza;
+   }
+
+   /**
+    * obtiene el instante de comienzo de la ejecucion, antes de
+    * la inicializacion de los centros
+    *
+    * @return instante de comienzo en nanosegundos, medido con
+    * System.nanoTime
+    */
+   public long obtenerInicio() {
+      return inicio;
+   }
+
    /**
     * obtiene el primer conjunto de centros
     *
@@ -217,19 +529,164 @@ public class KMedias {
     * @return imagen generada tras el filtrado
     */
    public Imagen agrupar() {
-      // se produce la inicializacion de los centroides para
-      // empezar el proceso
-      centrosT1 = inicializador.seleccionar(this);
-
-      // se llama al metodo que realiza el bucle principal
-      // de calculo de distancias - asignacion - determinacion
-      // de nuevos centroides, hasta que haya convergencia
-      iterar();
+      // se realiza la ejecucion o, si se han pedido reinicios,
+      // todas ellas a la vez conservando la mejor
+      if(reinicios.isEmpty()){
+         ejecutar();
+      }
+      else{
+         ejecutarReinicios();
+      }
 
       // se crea una nueva imagen a partir de la actual,
       // pero aplicando el filtro dado por el resultado
       // del algoritmo de agrupamiento
-      return aplicarFiltro();
+      EventoFiltrado filtrado = new EventoFiltrado();
+      filtrado.begin();
+      Imagen resultado = almacen.esHistograma() ? aplicarFiltroHistograma() :
+              aplicarFiltro();
+      filtrado.end();
+      if(filtrado.shouldCommit()){
+         describir(filtrado);
+         filtrado.commit();
+      }
+      return resultado;
+   }
+
+   /**
+    * completa un evento de monitorizacion con el numero de
+    * pixels, el valor de k y los nombres de las estrategias
+    *
+    * @param evento evento a completar
+    */
+   private void describir(EventoCuantificacion evento) {
+      evento.asignarPixels(almacen.obtenerPesoTotal());
+      evento.asignarEstrategias(k, inicializador.getClass().getSimpleName(),
+              motor == null ? ModoIteracion.NINGUNA.name() :
+                      motor.getClass().getSimpleName(),
+              parada.getClass().getSimpleName());
+   }
+
+   /**
+    * realiza una ejecucion completa del algoritmo, desde la
+    * inicializacion de los centroides hasta la convergencia
+    */
+   private void ejecutar() {
+      // se anota el comienzo, para las estrategias que limitan
+      // el tiempo de ejecucion
+      inicio = System.nanoTime();
+
+      // se crea el pool de hilos si se ha pedido ejecucion
+      // en paralelo; lo usan la inicializacion y las iteraciones
+      if(hilos > 1){
+         pool = new ForkJoinPool(hilos);
+      }
+
+      try{
+         // se produce la inicializacion de los centroides para
+         // empezar el proceso
+         EventoInicializacion inicializacion = new EventoInicializacion();
+         inicializacion.begin();
+         centrosT1 = inicializador.seleccionar(this);
+         inicializacion.end();
+         if(inicializacion.shouldCommit()){
+            describir(inicializacion);
+            inicializacion.commit();
+         }
+         if(traza != null){
+            traza.anotarInicializacion(System.nanoTime() - inicio);
+         }
+
+         // se llama al metodo que realiza el bucle principal
+         // de calculo de distancias - asignacion - determinacion
+         // de nuevos centroides, hasta que haya convergencia. Sin
+         // estrategia de iteracion se conservan los centros iniciales
+         if(motor != null){
+            iterar();
+         }
+         else{
+            centrosT2 = centrosT1;
+            iteraciones = 0;
+         }
+      }
+      finally{
+         // se liberan los hilos
+         if(pool != null){
+            pool.shutdown();
+            pool = null;
+         }
+      }
+   }
+
+   /**
+    * realiza esta ejecucion y los reinicios a la vez, en un
+    * pool con tantos hilos como ejecuciones (limitado por el
+    * numero de procesadores). Se conserva el resultado de menor
+    * inercia; en caso de empate, el de la primera ejecucion
+    */
+   private void ejecutarReinicios() {
+      List<KMedias> ejecuciones = new ArrayList<>();
+      ejecuciones.add(this);
+      ejecuciones.addAll(reinicios);
+
+      // se lanzan todas las ejecuciones; cada una calcula
+      // tambien su inercia
+      ForkJoinPool poolReinicios = new ForkJoinPool(Math.min(ejecuciones.size(),
+              Runtime.getRuntime().availableProcessors()));
+      try{
+         List<ForkJoinTask<?>> tareas = new ArrayList<>();
+         for(KMedias ejecucion : ejecuciones){
+            tareas.add(poolReinicios.submit(() -> {
+               ejecucion.ejecutar();
+               ejecucion.obtenerInercia();
+            }));
+         }
+         for(ForkJoinTask<?> tarea : tareas){
+            tarea.join();
+         }
+      }
+      finally{
+         poolReinicios.shutdown();
+      }
+
+      // se elige la ejecucion de menor inercia
+      for(KMedias ejecucion : ejecuciones){
+         if(ejecucion.inercia < ganador.inercia){
+            ganador = ejecucion;
+         }
+      }
+
+      // se conserva su resultado
+      centrosT1 = ganador.centrosT1;
+      centrosT2 = ganador.centrosT2;
+      iteraciones = ganador.iteraciones;
+      medidaConvergencia = ganador.medidaConvergencia;
+      inercia = ganador.inercia;
+   }
+
+   /**
+    * calcula la inercia de los centros actuales: se asigna cada
+    * pixel a su centro mas cercano y se suman las distancias
+    * cuadraticas, ponderadas por el peso de cada entrada
+    * FUNCIONAL
+    *
+    * @return valor de la inercia
+    */
+   private double calcularInercia() {
+      double[] rojos = Utilidades.obtenerComponentes(centrosT1, ComponentesRGBA.ROJO);
+      double[] verdes = Utilidades.obtenerComponentes(centrosT1, ComponentesRGBA.VERDE);
+      double[] azules = Utilidades.obtenerComponentes(centrosT1, ComponentesRGBA.AZUL);
+
+      // se asigna cada pixel a su centro mas cercano
+      almacen.obtenerMasCercanos(0, almacen.obtenerNumeroPixels(), rojos,
+              verdes, azules, asignacion);
+
+      // se suman las distancias
+      return IntStream.range(0, almacen.obtenerNumeroPixels())
+              .mapToDouble(i -> almacen.obtenerPeso(i) *
+                      almacen.distanciaCuadratica(i, rojos[asignacion[i]],
+                              verdes[asignacion[i]], azules[asignacion[i]]))
+              .sum();
    }
 
 
@@ -241,15 +698,37 @@ public class KMedias {
     * FUNCIONAL
     */
    private void iterar() {
-      // clasificar los pixels por distancia a los
-      // centroides iniciales
-      clasificacion = clasificar();
-
-      // se actualizan los centroides
-      actualizar();
+      // clasificar los pixels por distancia a los centroides
+      // iniciales y actualizar los centroides, mediante la
+      // estrategia de iteracion
+      EventoIteracion iteracion = new EventoIteracion();
+      iteracion.begin();
+      long antes = System.nanoTime();
+      centrosT2 = motor.iterar(this);
+      long despues = System.nanoTime();
+      iteracion.end();
+      if(iteracion.shouldCommit()){
+         iteracion.asignarNumero(iteraciones);
+         describir(iteracion);
+         iteracion.commit();
+      }
 
       // comprobar si hay convergencia
+      EventoConvergencia comprobacion = new EventoConvergencia();
+      comprobacion.begin();
       boolean convergencia = parada.convergencia(this);
+      comprobacion.end();
+      if(comprobacion.shouldCommit()){
+         comprobacion.asignarResultado(iteraciones, parada.obtenerMedida(),
+                 convergencia);
+         describir(comprobacion);
+         comprobacion.commit();
+      }
+
+      // se anota la iteracion en la traza
+      if(traza != null){
+         anotarIteracion(despues - antes, System.nanoTime() - despues);
+      }
 
       // se actualizan los centroides
       centrosT1 = centrosT2;
@@ -264,12 +743,59 @@ public class KMedias {
          iterar();
       }
       else{
+         // si la estrategia de convergencia conserva los mejores
+         // centros encontrados, estos son el resultado
+         List<Pixel> mejores = parada.obtenerMejoresCentros();
+         if(mejores != null){
+            centrosT1 = mejores;
+            centrosT2 = mejores;
+         }
+
          // se obtiene la medida obtenida para la
          // convergencia
          medidaConvergencia = parada.obtenerMedida();
       }
    }
 
+   /**
+    * anota en la traza los datos de la iteracion en curso. Se
+    * obtienen de las estadisticas de la iteracion, sin recorrer
+    * los pixels; los que no estan disponibles se anotan como
+    * desconocidos
+    *
+    * @param duracion     duracion de la iteracion en nanosegundos
+    * @param convergencia duracion de la comprobacion de la
+    *                     convergencia en nanosegundos
+    */
+   private void anotarIteracion(long duracion, long convergencia) {
+      long actualizacion = motor.obtenerDuracionActualizacion();
+
+      // desplazamiento medio de los centros: media de las
+      // distancias euclideas
+      double desplazamiento = IntStream.range(0, centrosT1.size())
+              .mapToDouble(j -> Math.sqrt(centrosT1.get(j).distanciaCuadratica(
+                      centrosT2.get(j))))
+              .sum() / centrosT1.size();
+
+      // inercia, grupos vacios y cambios de grupo
+      EstadisticasIteracion estadisticas = motor.obtenerEstadisticas();
+      double inerciaIteracion = Double.NaN;
+      int vacios = -1;
+      long cambios = -1;
+      // solo se conocen si las estadisticas cubren todos los
+      // pixels: con mini-lotes un grupo sin pixels del lote no
+      // tiene por que estar vacio
+      if(estadisticas != null && estadisticas.esCompleta()){
+         vacios = (int) IntStream.range(0, estadisticas.obtenerNumeroGrupos())
+                 .filter(grupo -> estadisticas.obtenerPeso(grupo) == 0)
+                 .count();
+         inerciaIteracion = estadisticas.calcularErrorMedias(centrosT1);
+         cambios = estadisticas.obtenerCambios();
+      }
+      traza.anotar(iteraciones, 0, duracion - actualizacion, actualizacion,
+              convergencia, inerciaIteracion, desplazamiento, vacios, cambios);
+   }
+
    /**
     * metodo que implementa el bucle principal del
     * algoritmo: repite el proceso hasta obtener la
@@ -280,10 +806,10 @@ public class KMedias {
    private void iterarImperativo() {
       // clasificar los pixels por distancia a los
       // centroides iniciales
-      clasificacion = clasificar();
+      clasificarImperativo();
 
       // se actualizan los centroides
-      actualizar();
+      actualizarImperativa();
 
       // comprobar si hay convergencia
       boolean convergencia = parada.convergencia(this);
@@ -301,6 +827,14 @@ public class KMedias {
          iterar();
       }
       else{
+         // si la estrategia de convergencia conserva los mejores
+         // centros encontrados, estos son el resultado
+         List<Pixel> mejores = parada.obtenerMejoresCentros();
+         if(mejores != null){
+            centrosT1 = mejores;
+            centrosT2 = mejores;
+         }
+
          // se obtiene la medida obtenida para la
          // convergencia
          medidaConvergencia = parada.obtenerMedida();
@@ -309,133 +843,243 @@ public class KMedias {
 
    /**
     * metodo auxiliar que produce los nuevos grupos
-    * obtenidos tras el calculo de distancias. Los
-    * datos se devuelven en un diccionario en que la
-    * clave es un centroide y el valor todos los pixels
-    * agrupados al mismo FUNCIONAL
-    *
-    * @return
+    * obtenidos tras el calculo de distancias. Para cada
+    * pixel del almacen se anota en el array de asignaciones
+    * la posicion del centroide mas cercano FUNCIONAL
     */
-   private Map<Pixel, List<Pixel>> clasificar() {
-      // para cada pixel tenemos que obtener el centroide
-      // mas cercano. El resultado se almacena en un
-      // diccionario en que la clave seran los centros
-      // y los valores las listas de pixels asociados
-      Map<Pixel, List<Pixel>> resultado =
-      centrosT1.stream().collect(Collectors.toMap(
-              centro -> centro, centro -> new ArrayList<>()));
-
+   private void clasificar() {
+      // se obtienen las componentes de los centros para
+      // recorrerlas sin acceder a los objetos
+      double[] rojos = Utilidades.obtenerComponentes(centrosT1, ComponentesRGBA.ROJO);
+      double[] verdes = Utilidades.obtenerComponentes(centrosT1, ComponentesRGBA.VERDE);
+      double[] azules = Utilidades.obtenerComponentes(centrosT1, ComponentesRGBA.AZUL);
 
-      pixels.stream().forEach(pixel -> {
-                 Pixel centroMasCercano = pixel.obtenerMasCercano(centrosT1);
-                 resultado.get(centroMasCercano).add(pixel);
-              });
+      // para cada pixel tenemos que obtener el centroide
+      // mas cercano
+      IntStream.range(0, almacen.obtenerNumeroPixels()).forEach(i ->
+              asignacion[i] = almacen.obtenerMasCercano(i, rojos, verdes, azules));
+   }
 
-      // se devuelve el mapa resultante
-      return resultado;
+   /**
+    * metodo auxiliar que produce los nuevos grupos con el
+    * nucleo de distancias, que trata todos los pixels del
+    * almacen en una sola llamada (de forma vectorial si esta
+    * disponible). Es el usado por la iteracion clasica sin
+    * pool de hilos
+    */
+   private void clasificarBloques() {
+      // se obtienen las componentes de los centros
+      double[] rojos = Utilidades.obtenerComponentes(centrosT1, ComponentesRGBA.ROJO);
+      double[] verdes = Utilidades.obtenerComponentes(centrosT1, ComponentesRGBA.VERDE);
+      double[] azules = Utilidades.obtenerComponentes(centrosT1, ComponentesRGBA.AZUL);
+
+      // el nucleo de distancias trata todos los pixels de una vez
+      almacen.obtenerMasCercanos(0, almacen.obtenerNumeroPixels(), rojos,
+              verdes, azules, asignacion);
    }
 
 
    /**
     * metodo auxiliar que produce los nuevos grupos
-    * obtenidos tras el calculo de distancias. Los
-    * datos se devuelven en un diccionario en que la
-    * clave es un centroide y el valor todos los pixels
-    * agrupados al mismo de forma imperativa
-    *
-    * @return
+    * obtenidos tras el calculo de distancias. Para cada
+    * pixel del almacen se anota en el array de asignaciones
+    * la posicion del centroide mas cercano de forma imperativa
     */
-   private Map<Pixel, List<Pixel>> clasificarImperativo() {
-      // para cada pixel tenemos que obtener el centroide
-      // mas cercano. El resultado se almacena en un
-      // diccionario en que la clave seran los centros
-      // y los valores las listas de pixels asociados
-      Map<Pixel, List<Pixel>> resultado = new HashMap<>();
-
-      // se agregan los centroides al resultado
-      for(Pixel centro : centrosT1){
-         resultado.put(centro, new ArrayList<>());
-      }
+   private void clasificarImperativo() {
+      // se obtienen las componentes de los centros para
+      // recorrerlas sin acceder a los objetos
+      double[] rojos = Utilidades.obtenerComponentes(centrosT1, ComponentesRGBA.ROJO);
+      double[] verdes = Utilidades.obtenerComponentes(centrosT1, ComponentesRGBA.VERDE);
+      double[] azules = Utilidades.obtenerComponentes(centrosT1, ComponentesRGBA.AZUL);
 
       // procesado de los pixels uno por uno
-      for(Pixel pixel : pixels){
+      for(int i=0; i < almacen.obtenerNumeroPixels(); i++){
          // se obtiene el centro mas cercano
-         Pixel centroMasCercano = pixel.obtenerMasCercano(centrosT1);
+         asignacion[i] = almacen.obtenerMasCercano(i, rojos, verdes, azules);
+      }
+   }
 
-         // actualizo la lista correspondiente
-         List<Pixel> grupo = resultado.get(centroMasCercano);
-         grupo.add(pixel);
 
-      }
-      // se devuelve el mapa resultante
-      return resultado;
+   /**
+    * metodo auxiliar que produce los nuevos grupos repartiendo
+    * los pixels en particiones que se procesan en paralelo en
+    * el pool de hilos. Cada particion escribe solo su parte
+    * del array de asignaciones
+    */
+   private void clasificarParalelo() {
+      // se obtienen las componentes de los centros
+      double[] rojos = Utilidades.obtenerComponentes(centrosT1, ComponentesRGBA.ROJO);
+      double[] verdes = Utilidades.obtenerComponentes(centrosT1, ComponentesRGBA.VERDE);
+      double[] azules = Utilidades.obtenerComponentes(centrosT1, ComponentesRGBA.AZUL);
+
+      // cada particion asigna a sus pixels el centro mas cercano
+      TareaParticion.ejecutar(pool, almacen.obtenerNumeroPixels(),
+              centrosT1.size(), (inicio, fin, parcial) -> {
+                 almacen.obtenerMasCercanos(inicio, fin, rojos, verdes,
+                         azules, asignacion);
+              });
    }
 
+   /**
+    * actualizacion de la lista de centros repartiendo los
+    * pixels en particiones que se procesan en paralelo. Cada
+    * particion acumula sus sumas por separado y los resultados
+    * parciales se combinan en un orden fijo
+    */
+   private void actualizarParalelo() {
+      // cada particion acumula las componentes de sus pixels
+      EstadisticasIteracion estadisticas = TareaParticion.ejecutar(pool,
+              almacen.obtenerNumeroPixels(), centrosT1.size(),
+              (inicio, fin, parcial) -> {
+                 for(int i=inicio; i < fin; i++){
+                    parcial.acumular(asignacion[i], almacen.obtenerPeso(i),
+                            almacen.obtenerRojo(i), almacen.obtenerVerde(i),
+                            almacen.obtenerAzul(i));
+                 }
+              });
+
+      // se calculan los nuevos centros
+      centrosT2 = estadisticas.obtenerCentros(centrosT1);
+   }
 
    /**
     * actualizacion de la lista de centros obtenidos de acuerdo
-    * a la clasificacion y centroides pasados como argumento
+    * a la clasificacion y centroides pasados como argumento.
+    * Los grupos vacios conservan su centroide
     * FUNCIONAL
     */
    private void actualizar() {
-      // se crea almacen para centros finales
-      centrosT2 = new ArrayList<>();
-
-      // se calcula la medida para cada grupo de la
-      // clasificacion realizada
-
-      centrosT2 = centrosT1.stream().map(centro -> clasificacion.get(centro)).
-              filter(grupo -> !grupo.isEmpty())
-              .map(grupo -> Utilidades.calcularMedia(grupo))
+      // se crean los acumuladores de cada grupo
+      int numeroGrupos = centrosT1.size();
+      double[] sumaRojo = new double[numeroGrupos];
+      double[] sumaVerde = new double[numeroGrupos];
+      double[] sumaAzul = new double[numeroGrupos];
+      long[] contador = new long[numeroGrupos];
+
+      // se acumulan las componentes de cada pixel en su grupo,
+      // ponderadas por el peso de cada entrada del almacen
+      IntStream.range(0, almacen.obtenerNumeroPixels()).forEach(i -> {
+         int grupo = asignacion[i];
+         int peso = almacen.obtenerPeso(i);
+         sumaRojo[grupo] += peso * almacen.obtenerRojo(i);
+         sumaVerde[grupo] += peso * almacen.obtenerVerde(i);
+         sumaAzul[grupo] += peso * almacen.obtenerAzul(i);
+         contador[grupo] += peso;
+      });
+
+      // se calcula la media de cada grupo no vacio
+      centrosT2 = IntStream.range(0, numeroGrupos).mapToObj(grupo ->
+              contador[grupo] > 0 ?
+                      Utilidades.calcularMedia(sumaRojo[grupo], sumaVerde[grupo],
+                              sumaAzul[grupo], contador[grupo]) :
+                      centrosT1.get(grupo))
               .collect(Collectors.toList());
-
-      centrosT2.addAll(centrosT1.stream().filter(grupo ->
-              clasificacion.get(grupo).isEmpty())
-              .collect(Collectors.toList()));
-
    }
+
    /**
     * actualizacion de la lista de centros obtenidos de acuerdo
     * a la clasificacion y centroides pasados como argumento
     * de forma imperativa
     */
    private void actualizarImperativa() {
+      // se crean los acumuladores de cada grupo
+      int numeroGrupos = centrosT1.size();
+      double[] sumaRojo = new double[numeroGrupos];
+      double[] sumaVerde = new double[numeroGrupos];
+      double[] sumaAzul = new double[numeroGrupos];
+      long[] contador = new long[numeroGrupos];
+
+      // se acumulan las componentes de cada pixel en su grupo,
+      // ponderadas por el peso de cada entrada del almacen
+      for(int i=0; i < almacen.obtenerNumeroPixels(); i++){
+         int grupo = asignacion[i];
+         int peso = almacen.obtenerPeso(i);
+         sumaRojo[grupo] += peso * almacen.obtenerRojo(i);
+         sumaVerde[grupo] += peso * almacen.obtenerVerde(i);
+         sumaAzul[grupo] += peso * almacen.obtenerAzul(i);
+         contador[grupo] += peso;
+      }
+
       // se crea almacen para centros finales
       centrosT2 = new ArrayList<>();
 
       // se calcula la medida para cada grupo de la
       // clasificacion realizada
-      for(int i=0; i < clasificacion.size(); i++){
-         List<Pixel> grupo = clasificacion.get(centrosT1.get(i));
-
+      for(int grupo=0; grupo < numeroGrupos; grupo++){
          // se comprueba que el grupo no este vacio
-         if(!grupo.isEmpty()){
-            centrosT2.add(Utilidades.calcularMedia(grupo));
+         if(contador[grupo] > 0){
+            centrosT2.add(Utilidades.calcularMedia(sumaRojo[grupo],
+                    sumaVerde[grupo], sumaAzul[grupo], contador[grupo]));
          }
          else{
-            centrosT2.add(centrosT1.get(i));
+            centrosT2.add(centrosT1.get(grupo));
          }
       }
    }
 
    /**
     * metodo para aplicar el filtro a la imagen y generar
-    * asi la imagen resultante
+    * asi la imagen resultante. El centro mas cercano se calcula
+    * una sola vez por cada color distinto de la imagen
     *
     * @return imagen procesada
     * FUNCIONAL
     */
    private Imagen aplicarFiltro() {
+      // se obtienen las componentes y los colores de los centros
+      double[] rojos = Utilidades.obtenerComponentes(centrosT1, ComponentesRGBA.ROJO);
+      double[] verdes = Utilidades.obtenerComponentes(centrosT1, ComponentesRGBA.VERDE);
+      double[] azules = Utilidades.obtenerComponentes(centrosT1, ComponentesRGBA.AZUL);
+      int[] coloresCentros = centrosT1.stream().mapToInt(Pixel::obtenerIndice).toArray();
+
+      // se numeran los colores distintos de la imagen
+      TablaColores tabla = new TablaColores(imagen.obtenerNumeroPixels());
+      int[] numeros = IntStream.of(imagen.obtenerDatos()).
+              map(tabla::numerar).toArray();
+
+      // el centro mas cercano se calcula una sola vez por cada
+      // color distinto, todos a la vez
+      int[] masCercanos = tabla.obtenerMasCercanos(rojos, verdes, azules);
+
+      //obtengo el array de colores de los pixels
+      int[] pixels = IntStream.of(numeros).
+              map(numero -> coloresCentros[masCercanos[numero]]).
+              toArray();
 
-      // considero todos los pixels de la imagen
-      int dimension = imagen.obtenerColumnas()*imagen.obtenerFilas();
+      // devuelve la imagen creada
+      return new Imagen(imagen.obtenerColumnas(), imagen.obtenerFilas(),
+              pixels);
+   }
 
-      //obtengo la lista de pixeles
-      List <Integer> pixels = IntStream.range(0, dimension).boxed().
-              map(numeroPixel -> new Pixel(imagen.obtenerColorPixel(numeroPixel))).
-              map(pixel -> pixel.obtenerMasCercano(centrosT1)).
-              map(masCercano -> masCercano.obtenerIndice()).
-              collect(Collectors.toList());
+   /**
+    * metodo para aplicar el filtro a la imagen cuando se ha
+    * trabajado con el histograma de colores: se determina una
+    * sola vez el centro mas cercano a cada color distinto y
+    * despues se sustituye cada pixel mediante esa tabla
+    *
+    * @return imagen procesada
+    */
+   private Imagen aplicarFiltroHistograma() {
+      // se obtienen las componentes y los colores de los centros
+      double[] rojos = Utilidades.obtenerComponentes(centrosT1, ComponentesRGBA.ROJO);
+      double[] verdes = Utilidades.obtenerComponentes(centrosT1, ComponentesRGBA.VERDE);
+      double[] azules = Utilidades.obtenerComponentes(centrosT1, ComponentesRGBA.AZUL);
+      int[] coloresCentros = centrosT1.stream().mapToInt(Pixel::obtenerIndice).toArray();
+
+      // tabla con el color final de cada color distinto
+      int[] tabla = new int[almacen.obtenerNumeroPixels()];
+      almacen.obtenerMasCercanos(0, tabla.length, rojos, verdes, azules,
+              tabla);
+      for(int i=0; i < tabla.length; i++){
+         tabla[i] = coloresCentros[tabla[i]];
+      }
+
+      // se sustituye cada pixel de la imagen usando la tabla
+      int[] datos = imagen.obtenerDatos();
+      int[] pixels = new int[datos.length];
+      for(int i=0; i < datos.length; i++){
+         pixels[i] = tabla[almacen.buscarColor(datos[i])];
+      }
 
       // devuelve la imagen creada
       return new Imagen(imagen.obtenerColumnas(), imagen.obtenerFilas(),
@@ -449,27 +1093,67 @@ public class KMedias {
     * @return imagen procesada
     */
    private Imagen aplicarFiltroImperativo() {
+      // se obtienen las componentes y los colores de los centros
+      double[] rojos = Utilidades.obtenerComponentes(centrosT1, ComponentesRGBA.ROJO);
+      double[] verdes = Utilidades.obtenerComponentes(centrosT1, ComponentesRGBA.VERDE);
+      double[] azules = Utilidades.obtenerComponentes(centrosT1, ComponentesRGBA.AZUL);
+      int[] coloresCentros = centrosT1.stream().mapToInt(Pixel::obtenerIndice).toArray();
+
       // se crea una nueva imagen usando unicamente los
       // centros finales como pixels
-      List<Integer> pixels = new ArrayList<>();
+      int[] datos = imagen.obtenerDatos();
+      int[] pixels = new int[datos.length];
 
-      // considero todos los pixels de la imagen
-      int dimension = imagen.obtenerColumnas()*imagen.obtenerFilas();
-
-      // recorrido de los pixels
-      for(int i=0; i < dimension; i++){
-         int colorPixel = imagen.obtenerColorPixel(i);
-         Pixel pixel = new Pixel(colorPixel);
+      // se numeran los colores distintos de la imagen
+      TablaColores tabla = new TablaColores(imagen.obtenerNumeroPixels());
+      for(int i=0; i < datos.length; i++){
+         pixels[i] = tabla.numerar(datos[i]);
+      }
 
-         // se obtiene el mas cercano
-         Pixel masCercano = pixel.obtenerMasCercano(centrosT1);
+      // se calcula el centro mas cercano a cada color distinto
+      int[] masCercanos = tabla.obtenerMasCercanos(rojos, verdes, azules);
 
-         // se agrega a la lista de pixels finales
-         pixels.add(masCercano.obtenerIndice());
+      // recorrido de los pixels
+      for(int i=0; i < datos.length; i++){
+         // se sustituye el numero del color por su centro
+         pixels[i] = coloresCentros[masCercanos[pixels[i]]];
       }
 
       // devuelve la imagen creada
       return new Imagen(imagen.obtenerColumnas(), imagen.obtenerFilas(),
               pixels);
    }
+
+   /**
+    * estrategia de iteracion que clasifica los pixels y
+    * actualiza los centros en dos recorridos separados,
+    * mediante los metodos clasificarBloques y actualizar
+    */
+   private static class IteracionClasica extends EstrategiaIteracion {
+      /**
+       * realiza la iteracion en dos recorridos, en paralelo si
+       * el objeto dispone de pool de hilos
+       *
+       * @param kmedias objeto sobre el que se itera
+       * @return lista con los centros al final de la iteracion
+       */
+      @Override
+      public List<Pixel> iterar(KMedias kmedias) {
+         long inicio;
+         if(kmedias.pool == null){
+            kmedias.clasificarBloques();
+            inicio = System.nanoTime();
+            kmedias.actualizar();
+         }
+         else{
+            kmedias.clasificarParalelo();
+            inicio = System.nanoTime();
+            kmedias.actualizarParalelo();
+         }
+         duracionActualizacion = System.nanoTime() - inicio;
+
+         // se devuelven los centros calculados
+         return kmedias.centrosT2;
+      }
+   }
 }
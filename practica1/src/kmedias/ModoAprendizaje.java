@@ -0,0 +1,19 @@
+package kmedias;
+
+/**
+ * enumerado para las formas de calcular la tasa de aprendizaje
+ * con la que se mueven los centros en la iteracion por mini-lotes
+ */
+public enum ModoAprendizaje {
+   /**
+    * tasa inversa al numero de pixels asignados al centro hasta
+    * el momento, de forma que cada centro es la media de los
+    * pixels que ha recibido
+    */
+   CONTADORES,
+
+   /**
+    * tasa constante, indicada en las opciones de ejecucion
+    */
+   CONSTANTE
+}
@@ -0,0 +1,49 @@
+package kmedias;
+
+/**
+ * enumerado para los modos de realizar cada iteracion
+ * del algoritmo de las k-medias
+ */
+public enum ModoIteracion {
+   /**
+    * clasificacion de los pixels y actualizacion de los
+    * centros en dos recorridos separados
+    */
+   CLASICA,
+
+   /**
+    * clasificacion y acumulacion de las sumas de cada grupo
+    * en un unico recorrido de los pixels
+    */
+   LLOYD,
+
+   /**
+    * iteracion de Lloyd acelerada con cotas de distancia
+    * mediante la desigualdad triangular (metodo de Elkan). Solo
+    * compensa con el nucleo de distancias escalar: con el
+    * vectorial (modulo jdk.incubator.vector) LLOYD es varias
+    * veces mas rapida
+    */
+   ELKAN,
+
+   /**
+    * iteracion de Lloyd acelerada con una unica cota inferior
+    * por pixel (metodo de Hamerly). Como ELKAN, solo compensa con
+    * el nucleo de distancias escalar
+    */
+   HAMERLY,
+
+   /**
+    * actualizacion de los centros con lotes de pixels elegidos
+    * al azar, sin recorrer toda la imagen en cada iteracion
+    */
+   MINI_LOTES,
+
+   /**
+    * no se itera: la imagen se filtra con los centros de la
+    * inicializacion. Junto con una inicializacion que ya es un
+    * cuantificador (corte de la mediana, arbol octal) da una
+    * paleta rapida
+    */
+   NINGUNA
+}
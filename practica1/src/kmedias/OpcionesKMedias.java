@@ -0,0 +1,274 @@
+package kmedias;
+
+import java.util.SplittableRandom;
+
+/**
+ * clase para agrupar las opciones de ejecucion del algoritmo
+ * de las k-medias que no forman parte de la parametrizacion
+ * basica del metodo factoria. Todas las opciones tienen un
+ * valor por defecto que reproduce el comportamiento original
+ */
+public class OpcionesKMedias {
+   /**
+    * indica si el algoritmo trabaja sobre el histograma de
+    * colores de la imagen en lugar de sobre todos sus pixels
+    */
+   private boolean histograma;
+
+   /**
+    * numero de hilos a usar en el recorrido de los pixels
+    */
+   private int hilos;
+
+   /**
+    * modo de realizar cada iteracion
+    */
+   private ModoIteracion modoIteracion;
+
+   /**
+    * numero de pixels de cada lote en la iteracion por mini-lotes
+    */
+   private int tamanoLote;
+
+   /**
+    * forma de calcular la tasa de aprendizaje en la iteracion
+    * por mini-lotes
+    */
+   private ModoAprendizaje modoAprendizaje;
+
+   /**
+    * tasa de aprendizaje para el modo constante
+    */
+   private double tasaAprendizaje;
+
+   /**
+    * semilla para la generacion de numeros aleatorios
+    */
+   private long semilla;
+
+   /**
+    * numero de ejecuciones independientes del algoritmo, de
+    * las que se conserva la de menor inercia
+    */
+   private int reinicios;
+
+   /**
+    * numero maximo de registros de la traza de iteraciones (0,
+    * el valor por defecto, si no se anota la traza)
+    */
+   private int capacidadTraza;
+
+   /**
+    * constructor de la clase, con los valores por defecto
+    */
+   public OpcionesKMedias() {
+      histograma = false;
+      hilos = 1;
+      modoIteracion = ModoIteracion.LLOYD;
+      tamanoLote = 1024;
+      modoAprendizaje = ModoAprendizaje.CONTADORES;
+      tasaAprendizaje = 0.05;
+      semilla = new SplittableRandom().nextLong();
+      reinicios = 1;
+      capacidadTraza = 0;
+   }
+
+   /**
+    * indica si se trabaja sobre el histograma de colores
+    *
+    * @return valor de la opcion
+    */
+   public boolean obtenerHistograma() {
+      return histograma;
+   }
+
+   /**
+    * permite trabajar sobre el histograma de colores de la
+    * imagen: cada color distinto se procesa una sola vez, con
+    * el numero de pixels que lo tienen como peso. Los centros
+    * obtenidos son los mismos que al procesar todos los pixels
+    *
+    * @param histograma nuevo valor de la opcion
+    */
+   public void asignarHistograma(boolean histograma) {
+      this.histograma = histograma;
+   }
+
+   /**
+    * devuelve el numero de hilos a usar
+    *
+    * @return numero de hilos
+    */
+   public int obtenerHilos() {
+      return hilos;
+   }
+
+   /**
+    * asigna el numero de hilos a usar en la clasificacion y
+    * actualizacion de los pixels. Con un unico hilo se usa el
+    * recorrido secuencial; con mas se reparten los pixels en
+    * un ForkJoinPool, obteniendo los mismos resultados
+    *
+    * @param hilos numero de hilos (al menos 1)
+    */
+   public void asignarHilos(int hilos) {
+      if (hilos < 1) {
+         throw new IllegalArgumentException("numero de hilos no valido: " + hilos);
+      }
+      this.hilos = hilos;
+   }
+
+   /**
+    * devuelve el modo de iteracion
+    *
+    * @return modo de iteracion seleccionado
+    */
+   public ModoIteracion obtenerModoIteracion() {
+      return modoIteracion;
+   }
+
+   /**
+    * asigna el modo de realizar cada iteracion
+    *
+    * @param modoIteracion modo de iteracion a usar
+    */
+   public void asignarModoIteracion(ModoIteracion modoIteracion) {
+      this.modoIteracion = modoIteracion;
+   }
+
+   /**
+    * devuelve el tamaño de lote de la iteracion por mini-lotes
+    *
+    * @return numero de pixels de cada lote
+    */
+   public int obtenerTamanoLote() {
+      return tamanoLote;
+   }
+
+   /**
+    * asigna el numero de pixels que se extraen en cada iteracion
+    * por mini-lotes
+    *
+    * @param tamanoLote numero de pixels de cada lote (al menos 1)
+    */
+   public void asignarTamanoLote(int tamanoLote) {
+      if (tamanoLote < 1) {
+         throw new IllegalArgumentException("tamaño de lote no valido: " + tamanoLote);
+      }
+      this.tamanoLote = tamanoLote;
+   }
+
+   /**
+    * devuelve la forma de calcular la tasa de aprendizaje
+    *
+    * @return modo de aprendizaje seleccionado
+    */
+   public ModoAprendizaje obtenerModoAprendizaje() {
+      return modoAprendizaje;
+   }
+
+   /**
+    * asigna la forma de calcular la tasa de aprendizaje en la
+    * iteracion por mini-lotes
+    *
+    * @param modoAprendizaje modo de aprendizaje a usar
+    */
+   public void asignarModoAprendizaje(ModoAprendizaje modoAprendizaje) {
+      this.modoAprendizaje = modoAprendizaje;
+   }
+
+   /**
+    * devuelve la tasa de aprendizaje del modo constante
+    *
+    * @return tasa de aprendizaje
+    */
+   public double obtenerTasaAprendizaje() {
+      return tasaAprendizaje;
+   }
+
+   /**
+    * asigna la tasa de aprendizaje del modo constante: fraccion
+    * de la distancia al pixel que se desplaza el centro
+    *
+    * @param tasaAprendizaje tasa en el intervalo (0, 1]
+    */
+   public void asignarTasaAprendizaje(double tasaAprendizaje) {
+      if (!(tasaAprendizaje > 0 && tasaAprendizaje <= 1)) {
+         throw new IllegalArgumentException("tasa de aprendizaje no valida: " +
+            tasaAprendizaje);
+      }
+      this.tasaAprendizaje = tasaAprendizaje;
+   }
+
+   /**
+    * devuelve la semilla para los numeros aleatorios
+    *
+    * @return semilla
+    */
+   public long obtenerSemilla() {
+      return semilla;
+   }
+
+   /**
+    * asigna la semilla para los numeros aleatorios, de forma que
+    * las ejecuciones sean reproducibles. Por defecto se elige al
+    * azar, por lo que cada ejecucion es distinta
+    *
+    * @param semilla nueva semilla
+    */
+   public void asignarSemilla(long semilla) {
+      this.semilla = semilla;
+   }
+
+   /**
+    * devuelve el numero de ejecuciones independientes
+    *
+    * @return numero de reinicios
+    */
+   public int obtenerReinicios() {
+      return reinicios;
+   }
+
+   /**
+    * asigna el numero de ejecuciones independientes del
+    * algoritmo. Cada una parte de su propia inicializacion, con
+    * su propio generador de numeros aleatorios, y todas comparten
+    * el almacen de pixels. Se ejecutan a la vez en un pool de
+    * hilos y se conserva la de menor inercia (suma de distancias
+    * cuadraticas de los pixels a su centro)
+    *
+    * @param reinicios numero de ejecuciones (al menos 1)
+    */
+   public void asignarReinicios(int reinicios) {
+      if (reinicios < 1) {
+         throw new IllegalArgumentException("numero de reinicios no valido: " +
+            reinicios);
+      }
+      this.reinicios = reinicios;
+   }
+
+   /**
+    * devuelve el numero maximo de registros de la traza de
+    * iteraciones
+    *
+    * @return capacidad de la traza (0 si no se anota)
+    */
+   public int obtenerCapacidadTraza() {
+      return capacidadTraza;
+   }
+
+   /**
+    * asigna el numero maximo de registros de la traza de
+    * iteraciones. Con mas iteraciones se conservan las ultimas;
+    * con 0 no se anota la traza
+    *
+    * @param capacidadTraza numero de registros (al menos 0)
+    */
+   public void asignarCapacidadTraza(int capacidadTraza) {
+      if (capacidadTraza < 0) {
+         throw new IllegalArgumentException("capacidad de traza no valida: " +
+            capacidadTraza);
+      }
+      this.capacidadTraza = capacidadTraza;
+   }
+}
@@ -0,0 +1,138 @@
+package kmedias;
+
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveTask;
+
+/**
+ * tarea para recorrer un rango de pixels dividiendolo en
+ * particiones que se procesan en paralelo en un ForkJoinPool.
+ * Cada particion acumula sus resultados en un objeto
+ * EstadisticasIteracion propio, y los resultados parciales se
+ * combinan siempre en el mismo orden. La division depende solo
+ * del tamaño del rango, no del numero de hilos, por lo que el
+ * resultado es el mismo con cualquier numero de hilos
+ */
+class TareaParticion extends RecursiveTask<EstadisticasIteracion> {
+   /**
+    * version de la clase para la serializacion
+    */
+   private static final long serialVersionUID = 1L;
+
+   /**
+    * numero maximo de pixels de una particion que ya no se divide
+    */
+   static final int TAMANO_PARTICION = 16384;
+
+   /**
+    * interfaz para el procesado de una particion
+    */
+   interface Procesador {
+      /**
+       * procesa los pixels de un rango
+       *
+       * @param inicio  primer pixel del rango
+       * @param fin     pixel siguiente al ultimo del rango
+       * @param parcial estadisticas donde acumular resultados
+       */
+      void procesar(int inicio, int fin, EstadisticasIteracion parcial);
+   }
+
+   /**
+    * primer pixel del rango
+    */
+   private final int inicio;
+
+   /**
+    * pixel siguiente al ultimo del rango
+    */
+   private final int fin;
+
+   /**
+    * numero de grupos de las estadisticas
+    */
+   private final int grupos;
+
+   /**
+    * procesado a aplicar a cada particion (la tarea no se
+    * serializa nunca)
+    */
+   private final transient Procesador procesador;
+
+   /**
+    * indica si las subtareas se lanzan en paralelo
+    */
+   private final boolean paralelo;
+
+   /**
+    * constructor de la clase
+    *
+    * @param inicio     primer pixel del rango
+    * @param fin        pixel siguiente al ultimo del rango
+    * @param grupos     numero de grupos de las estadisticas
+    * @param procesador procesado a aplicar a cada particion
+    * @param paralelo   indica si se lanzan subtareas en paralelo
+    */
+   private TareaParticion(int inicio, int fin, int grupos,
+                          Procesador procesador, boolean paralelo) {
+      this.inicio = inicio;
+      this.fin = fin;
+      this.grupos = grupos;
+      this.procesador = procesador;
+      this.paralelo = paralelo;
+   }
+
+   /**
+    * procesa el rango de pixels de 0 a numero - 1. Si no se
+    * indica pool, las particiones se recorren en el hilo actual
+    * siguiendo la misma division
+    *
+    * @param pool       pool de hilos a usar o null
+    * @param numero     numero de pixels
+    * @param grupos     numero de grupos de las estadisticas
+    * @param procesador procesado a aplicar a cada particion
+    * @return estadisticas combinadas de todas las particiones
+    */
+   static EstadisticasIteracion ejecutar(ForkJoinPool pool, int numero,
+                                         int grupos, Procesador procesador) {
+      TareaParticion tarea = new TareaParticion(0, numero, grupos,
+         procesador, pool != null);
+      return pool == null ? tarea.compute() : pool.invoke(tarea);
+   }
+
+   /**
+    * realiza el procesado de la tarea
+    *
+    * @return estadisticas del rango de la tarea
+    */
+   @Override
+   protected EstadisticasIteracion compute() {
+      EstadisticasIteracion resultado;
+      if (fin - inicio <= TAMANO_PARTICION) {
+         // la particion se procesa directamente
+         resultado = new EstadisticasIteracion(grupos);
+         procesador.procesar(inicio, fin, resultado);
+      } else {
+         // se divide el rango en dos mitades
+         int medio = (inicio + fin) >>> 1;
+         TareaParticion izquierda = new TareaParticion(inicio, medio, grupos,
+            procesador, paralelo);
+         TareaParticion derecha = new TareaParticion(medio, fin, grupos,
+            procesador, paralelo);
+
+         // se procesan las mitades y se combinan siempre en
+         // el mismo orden: primero la izquierda
+         if (paralelo) {
+            izquierda.fork();
+            EstadisticasIteracion parcialDerecha = derecha.compute();
+            resultado = izquierda.join();
+            resultado.combinar(parcialDerecha);
+         } else {
+            resultado = izquierda.compute();
+            resultado.combinar(derecha.compute());
+         }
+      }
+
+      // se devuelve el resultado
+      return resultado;
+   }
+}
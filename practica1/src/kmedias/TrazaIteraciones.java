@@ -0,0 +1,268 @@
+package kmedias;
+
+import java.io.IOException;
+
+/**
+ * traza de la ejecucion del algoritmo: para cada iteracion se
+ * anotan los tiempos de asignacion, actualizacion y comprobacion
+ * de la convergencia, la inercia, el desplazamiento de los
+ * centros, el numero de grupos vacios y el numero de pixels que
+ * cambian de grupo. El registro 0 corresponde a la inicializacion.
+ * Los registros se guardan en arrays de tipo primitivo usados
+ * como buffer circular: con mas iteraciones que capacidad se
+ * conservan las ultimas. Anotar un registro no crea objetos, por
+ * lo que el coste es despreciable frente al de una iteracion.
+ * La traza puede exportarse en formato CSV o JSON
+ */
+public class TrazaIteraciones {
+   /**
+    * cabecera del formato CSV, con los nombres de los campos
+    */
+   private static final String[] CAMPOS = {"iteracion", "inicializacion",
+      "asignacion", "actualizacion", "convergencia", "inercia",
+      "desplazamiento", "vacios", "cambios"};
+
+   /**
+    * numero de iteracion de cada registro
+    */
+   private final int[] iteraciones;
+
+   /**
+    * tiempo de inicializacion en nanosegundos
+    */
+   private final long[] inicializaciones;
+
+   /**
+    * tiempo de asignacion de los pixels en nanosegundos
+    */
+   private final long[] asignaciones;
+
+   /**
+    * tiempo de calculo de los nuevos centros en nanosegundos
+    */
+   private final long[] actualizaciones;
+
+   /**
+    * tiempo de comprobacion de la convergencia en nanosegundos
+    */
+   private final long[] convergencias;
+
+   /**
+    * inercia de los nuevos centros (NaN si no se conoce)
+    */
+   private final double[] inercias;
+
+   /**
+    * desplazamiento medio de los centros: media de las distancias
+    * euclideas entre cada centro al inicio y al final de la
+    * iteracion
+    */
+   private final double[] desplazamientos;
+
+   /**
+    * numero de grupos sin pixels (-1 si no se conoce)
+    */
+   private final int[] vacios;
+
+   /**
+    * numero de pixels que cambian de grupo (-1 si no se conoce)
+    */
+   private final long[] cambios;
+
+   /**
+    * numero total de registros anotados
+    */
+   private long anotados;
+
+   /**
+    * constructor de la clase
+    *
+    * @param capacidad numero maximo de registros conservados
+    * @throws IllegalArgumentException si la capacidad no es
+    * positiva
+    */
+   public TrazaIteraciones(int capacidad) {
+      if (capacidad < 1) {
+         throw new IllegalArgumentException("capacidad de traza no valida: " +
+            capacidad);
+      }
+      iteraciones = new int[capacidad];
+      inicializaciones = new long[capacidad];
+      asignaciones = new long[capacidad];
+      actualizaciones = new long[capacidad];
+      convergencias = new long[capacidad];
+      inercias = new double[capacidad];
+      desplazamientos = new double[capacidad];
+      vacios = new int[capacidad];
+      cambios = new long[capacidad];
+      anotados = 0;
+   }
+
+   /**
+    * anota la inicializacion como registro de la iteracion 0
+    *
+    * @param inicializacion tiempo de inicializacion en nanosegundos
+    */
+   public void anotarInicializacion(long inicializacion) {
+      anotar(0, inicializacion, 0, 0, 0, Double.NaN, Double.NaN, -1, -1);
+   }
+
+   /**
+    * anota los datos de una iteracion. Si el buffer esta lleno
+    * se sustituye el registro mas antiguo
+    *
+    * @param iteracion      numero de iteracion
+    * @param inicializacion tiempo de inicializacion en nanosegundos
+    * @param asignacion     tiempo de asignacion en nanosegundos
+    * @param actualizacion  tiempo de actualizacion en nanosegundos
+    * @param convergencia   tiempo de comprobacion de la convergencia
+    *                       en nanosegundos
+    * @param inercia        inercia de los nuevos centros
+    * @param desplazamiento desplazamiento medio de los centros
+    * @param vacio          numero de grupos vacios
+    * @param cambio         numero de pixels que cambian de grupo
+    */
+   public void anotar(int iteracion, long inicializacion, long asignacion,
+                      long actualizacion, long convergencia, double inercia,
+                      double desplazamiento, int vacio, long cambio) {
+      int posicion = (int) (anotados % iteraciones.length);
+      iteraciones[posicion] = iteracion;
+      inicializaciones[posicion] = inicializacion;
+      asignaciones[posicion] = asignacion;
+      actualizaciones[posicion] = actualizacion;
+      convergencias[posicion] = convergencia;
+      inercias[posicion] = inercia;
+      desplazamientos[posicion] = desplazamiento;
+      vacios[posicion] = vacio;
+      cambios[posicion] = cambio;
+      anotados++;
+   }
+
+   /**
+    * devuelve el numero de registros conservados
+    *
+    * @return numero de registros
+    */
+   public int obtenerNumeroRegistros() {
+      return (int) Math.min(anotados, iteraciones.length);
+   }
+
+   /**
+    * devuelve el numero de registros descartados por falta de
+    * capacidad
+    *
+    * @return numero de registros sustituidos por otros
+    */
+   public long obtenerNumeroDescartados() {
+      return anotados - obtenerNumeroRegistros();
+   }
+
+   /**
+    * devuelve el numero de iteracion de un registro
+    *
+    * @param registro posicion del registro, de 0 (el mas antiguo
+    *                 conservado) al numero de registros menos 1
+    * @return numero de iteracion
+    */
+   public int obtenerIteracion(int registro) {
+      return iteraciones[posicion(registro)];
+   }
+
+   /**
+    * devuelve el tiempo total de un registro: suma de los
+    * tiempos de inicializacion, asignacion, actualizacion y
+    * convergencia
+    *
+    * @param registro posicion del registro
+    * @return tiempo en nanosegundos
+    */
+   public long obtenerTiempo(int registro) {
+      int posicion = posicion(registro);
+      return inicializaciones[posicion] + asignaciones[posicion] +
+         actualizaciones[posicion] + convergencias[posicion];
+   }
+
+   /**
+    * devuelve la inercia de un registro
+    *
+    * @param registro posicion del registro
+    * @return inercia de los nuevos centros o NaN si no se conoce
+    */
+   public double obtenerInercia(int registro) {
+      return inercias[posicion(registro)];
+   }
+
+   /**
+    * escribe la traza en formato CSV: una cabecera y una linea
+    * por registro, del mas antiguo al mas reciente
+    *
+    * @param salida destino de la escritura
+    * @throws IOException si falla la escritura
+    */
+   public void escribirCSV(Appendable salida) throws IOException {
+      salida.append(String.join(",", CAMPOS)).append('\n');
+      for (int registro = 0; registro < obtenerNumeroRegistros(); registro++) {
+         String[] valores = obtenerValores(registro);
+         salida.append(String.join(",", valores)).append('\n');
+      }
+   }
+
+   /**
+    * escribe la traza en formato JSON: un objeto con el numero
+    * de registros descartados y la lista de registros
+    *
+    * @param salida destino de la escritura
+    * @throws IOException si falla la escritura
+    */
+   public void escribirJSON(Appendable salida) throws IOException {
+      salida.append("{\"descartados\":").append(
+         Long.toString(obtenerNumeroDescartados())).append(",\"iteraciones\":[");
+      for (int registro = 0; registro < obtenerNumeroRegistros(); registro++) {
+         String[] valores = obtenerValores(registro);
+         salida.append(registro == 0 ? "\n{" : ",\n{");
+         for (int campo = 0; campo < CAMPOS.length; campo++) {
+            // JSON no admite NaN: se escribe null
+            String valor = valores[campo].equals("NaN") ? "null" : valores[campo];
+            salida.append(campo == 0 ? "\"" : ",\"").append(CAMPOS[campo])
+               .append("\":").append(valor);
+         }
+         salida.append('}');
+      }
+      salida.append("\n]}\n");
+   }
+
+   /**
+    * obtiene los valores de un registro como texto, en el orden
+    * de los campos
+    *
+    * @param registro posicion del registro
+    * @return valores del registro
+    */
+   private String[] obtenerValores(int registro) {
+      int posicion = posicion(registro);
+      return new String[]{Integer.toString(iteraciones[posicion]),
+         Long.toString(inicializaciones[posicion]),
+         Long.toString(asignaciones[posicion]),
+         Long.toString(actualizaciones[posicion]),
+         Long.toString(convergencias[posicion]),
+         Double.toString(inercias[posicion]),
+         Double.toString(desplazamientos[posicion]),
+         Integer.toString(vacios[posicion]), Long.toString(cambios[posicion])};
+   }
+
+   /**
+    * convierte la posicion de un registro en su posicion en los
+    * arrays
+    *
+    * @param registro posicion del registro
+    * @return posicion en los arrays
+    * @throws IndexOutOfBoundsException si el registro no existe
+    */
+   private int posicion(int registro) {
+      int numero = obtenerNumeroRegistros();
+      if (registro < 0 || registro >= numero) {
+         throw new IndexOutOfBoundsException("registro no valido: " + registro);
+      }
+      return (int) ((anotados - numero + registro) % iteraciones.length);
+   }
+}
@@ -1,6 +1,33 @@
 /**
  * paquete para aportar la implementacion del algoritmo de
  * las K-medias para el filtrado de imagenes y reduccion
- * del numero de colores; solo incluye la clase KMedias
+ * del numero de colores. Contiene:
+ * a) KMedias: clase principal del algoritmo
+ * b) OpcionesKMedias: opciones adicionales de ejecucion
+ * c) EstadisticasIteracion: sumas, pesos, error cuadratico y
+ * ruido de cada grupo acumulados al recorrer los pixels
+ * d) TareaParticion: reparto de los pixels en particiones
+ * procesadas en paralelo
+ * e) ModoIteracion: enumerado con las formas de iterar
+ * f) EstrategiaIteracion: clase abstracta para las formas de
+ * realizar cada iteracion (patron estrategia)
+ * g) IteracionLloyd: asignacion y acumulacion de sumas en un
+ * unico recorrido de los pixels
+ * h) IteracionAcotada: clase base de las iteraciones que usan
+ * cotas de distancia (desigualdad triangular)
+ * i) IteracionElkan: iteracion acelerada con k cotas inferiores
+ * por pixel (solo con el nucleo de distancias escalar)
+ * j) IteracionHamerly: iteracion acelerada con una unica cota
+ * inferior por pixel (solo con el nucleo de distancias escalar)
+ * k) IteracionMiniLotes: actualizacion de los centros con lotes
+ * de pixels elegidos al azar
+ * l) ModoAprendizaje: enumerado con las formas de calcular la
+ * tasa de aprendizaje de los mini-lotes
+ * m) CorteMediana: cuantificador rapido por corte de la mediana
+ * sobre el histograma de colores
+ * n) ArbolOctal: cuantificador por arbol octal en una pasada y
+ * con memoria acotada
+ * o) TrazaIteraciones: tiempos y medidas de cada iteracion en un
+ * buffer circular, exportable en CSV o JSON
  */
-package kmedias;
\ No newline at end of file
+package kmedias;
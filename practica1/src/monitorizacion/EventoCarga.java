@@ -0,0 +1,28 @@
+package monitorizacion;
+
+import jdk.jfr.Description;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+
+/**
+ * evento de la lectura de una imagen desde un archivo
+ */
+@Name("ntp.Carga")
+@Label("Carga")
+@Description("Lectura de una imagen")
+public class EventoCarga extends EventoCuantificacion {
+   /**
+    * ruta del archivo
+    */
+   @Label("Ruta")
+   private String ruta;
+
+   /**
+    * asigna la ruta del archivo
+    *
+    * @param ruta ruta del archivo
+    */
+   public void asignarRuta(String ruta) {
+      this.ruta = ruta;
+   }
+}
@@ -0,0 +1,45 @@
+package monitorizacion;
+
+import jdk.jfr.Description;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+
+/**
+ * evento de la comprobacion de la convergencia tras una
+ * iteracion
+ */
+@Name("ntp.Convergencia")
+@Label("Comprobacion de convergencia")
+@Description("Comprobacion de la convergencia tras una iteracion")
+public class EventoConvergencia extends EventoCuantificacion {
+   /**
+    * numero de la iteracion
+    */
+   @Label("Numero")
+   private int numero;
+
+   /**
+    * medida calculada por la estrategia de convergencia
+    */
+   @Label("Medida")
+   private double medida;
+
+   /**
+    * indica si el algoritmo se detiene
+    */
+   @Label("Detenido")
+   private boolean detenido;
+
+   /**
+    * asigna el resultado de la comprobacion
+    *
+    * @param numero   numero de la iteracion
+    * @param medida   medida calculada
+    * @param detenido true si el algoritmo se detiene
+    */
+   public void asignarResultado(int numero, double medida, boolean detenido) {
+      this.numero = numero;
+      this.medida = medida;
+      this.detenido = detenido;
+   }
+}
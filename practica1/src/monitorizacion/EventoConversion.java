@@ -0,0 +1,31 @@
+package monitorizacion;
+
+import jdk.jfr.Description;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+
+/**
+ * evento de la conversion de los colores de la imagen a
+ * componentes RGB: la creacion de la lista de pixels de la
+ * imagen o del almacen de pixels usado por el algoritmo
+ */
+@Name("ntp.Conversion")
+@Label("Conversion")
+@Description("Conversion de los colores de la imagen a componentes RGB")
+public class EventoConversion extends EventoCuantificacion {
+   /**
+    * numero de entradas obtenidas: pixels o colores distintos
+    * si se agrupan en un histograma
+    */
+   @Label("Entradas")
+   private int entradas;
+
+   /**
+    * asigna el numero de entradas obtenidas
+    *
+    * @param entradas numero de entradas
+    */
+   public void asignarEntradas(int entradas) {
+      this.entradas = entradas;
+   }
+}
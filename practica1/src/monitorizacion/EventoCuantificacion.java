@@ -0,0 +1,71 @@
+package monitorizacion;
+
+import jdk.jfr.Category;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+
+/**
+ * clase base de los eventos de las fases del filtrado: todos
+ * llevan el numero de pixels de la imagen, el numero de colores
+ * k y los nombres de las estrategias de inicializacion, iteracion
+ * y convergencia. Los eventos de fases ajenas al algoritmo (carga
+ * y guardado) dejan k a 0 y los nombres sin asignar. Los campos
+ * son protegidos: JFR no registra los campos privados heredados
+ */
+@Category({"NTP", "Cuantificacion"})
+public abstract class EventoCuantificacion extends Event {
+   /**
+    * numero de pixels de la imagen
+    */
+   @Label("Pixels")
+   protected long pixels;
+
+   /**
+    * numero de colores
+    */
+   @Label("K")
+   protected int k;
+
+   /**
+    * estrategia de inicializacion
+    */
+   @Label("Inicializacion")
+   protected String inicializacion;
+
+   /**
+    * estrategia de iteracion
+    */
+   @Label("Iteracion")
+   protected String iteracion;
+
+   /**
+    * estrategia de convergencia
+    */
+   @Label("Convergencia")
+   protected String convergencia;
+
+   /**
+    * asigna el numero de pixels
+    *
+    * @param pixels numero de pixels de la imagen
+    */
+   public void asignarPixels(long pixels) {
+      this.pixels = pixels;
+   }
+
+   /**
+    * asigna k y los nombres de las estrategias del algoritmo
+    *
+    * @param k              numero de colores
+    * @param inicializacion estrategia de inicializacion
+    * @param iteracion      estrategia de iteracion
+    * @param convergencia   estrategia de convergencia
+    */
+   public void asignarEstrategias(int k, String inicializacion,
+                                  String iteracion, String convergencia) {
+      this.k = k;
+      this.inicializacion = inicializacion;
+      this.iteracion = iteracion;
+      this.convergencia = convergencia;
+   }
+}
@@ -0,0 +1,15 @@
+package monitorizacion;
+
+import jdk.jfr.Description;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+
+/**
+ * evento de la aplicacion del filtro: cada pixel se sustituye
+ * por su centro mas cercano
+ */
+@Name("ntp.Filtrado")
+@Label("Filtrado")
+@Description("Aplicacion del filtro a la imagen")
+public class EventoFiltrado extends EventoCuantificacion {
+}
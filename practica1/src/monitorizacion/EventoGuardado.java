@@ -0,0 +1,28 @@
+package monitorizacion;
+
+import jdk.jfr.Description;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+
+/**
+ * evento de la escritura de una imagen en un archivo PNG
+ */
+@Name("ntp.Guardado")
+@Label("Guardado")
+@Description("Escritura de una imagen en formato PNG")
+public class EventoGuardado extends EventoCuantificacion {
+   /**
+    * ruta del archivo
+    */
+   @Label("Ruta")
+   private String ruta;
+
+   /**
+    * asigna la ruta del archivo
+    *
+    * @param ruta ruta del archivo
+    */
+   public void asignarRuta(String ruta) {
+      this.ruta = ruta;
+   }
+}
@@ -0,0 +1,15 @@
+package monitorizacion;
+
+import jdk.jfr.Description;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+
+/**
+ * evento de la seleccion de los centros iniciales por la
+ * estrategia de inicializacion
+ */
+@Name("ntp.Inicializacion")
+@Label("Inicializacion")
+@Description("Seleccion de los centros iniciales")
+public class EventoInicializacion extends EventoCuantificacion {
+}
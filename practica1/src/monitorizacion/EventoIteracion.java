@@ -0,0 +1,29 @@
+package monitorizacion;
+
+import jdk.jfr.Description;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+
+/**
+ * evento de una iteracion del algoritmo: asignacion de los
+ * pixels y calculo de los nuevos centros
+ */
+@Name("ntp.Iteracion")
+@Label("Iteracion")
+@Description("Asignacion de pixels y calculo de los nuevos centros")
+public class EventoIteracion extends EventoCuantificacion {
+   /**
+    * numero de la iteracion
+    */
+   @Label("Numero")
+   private int numero;
+
+   /**
+    * asigna el numero de la iteracion
+    *
+    * @param numero numero de la iteracion
+    */
+   public void asignarNumero(int numero) {
+      this.numero = numero;
+   }
+}
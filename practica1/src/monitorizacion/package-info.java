@@ -0,0 +1,19 @@
+/**
+ * paquete con los eventos de Java Flight Recorder de las fases del
+ * filtrado de imagenes. Permiten obtener el reparto del tiempo y
+ * de la memoria entre las fases en una ejecucion normal (por
+ * ejemplo con jcmd PID JFR.start), sin cambiar el codigo ni usar
+ * un perfilador. Si no hay grabacion activa su coste es
+ * despreciable. Contiene:
+ * a) EventoCuantificacion: clase base con el numero de pixels, el
+ * valor de k y los nombres de las estrategias
+ * b) EventoCarga: lectura de una imagen
+ * c) EventoConversion: conversion de los colores de la imagen a
+ * componentes RGB
+ * d) EventoInicializacion: seleccion de los centros iniciales
+ * e) EventoIteracion: cada iteracion del algoritmo
+ * f) EventoConvergencia: cada comprobacion de la convergencia
+ * g) EventoFiltrado: aplicacion del filtro a la imagen
+ * h) EventoGuardado: escritura de la imagen en formato PNG
+ */
+package monitorizacion;
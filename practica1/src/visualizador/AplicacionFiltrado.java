@@ -5,6 +5,9 @@ import imagen.Imagen;
 import imagen.Utilidades;
 import inicializacion.ModoInicializacion;
 import kmedias.KMedias;
+import kmedias.ModoIteracion;
+import kmedias.OpcionesKMedias;
+import kmedias.TrazaIteraciones;
 
 import javax.swing.*;
 import javax.swing.border.*;
@@ -12,6 +15,9 @@ import java.awt.*;
 import java.awt.event.ActionEvent;
 import java.awt.event.ActionListener;
 import java.io.File;
+import java.io.FileWriter;
+import java.io.IOException;
+import java.io.Writer;
 
 /**
  * clase para proporcionar la interfaz de la aplicacion
@@ -55,6 +61,31 @@ public class AplicacionFiltrado extends JFrame {
     */
    private JRadioButton seleccionUniforme = null;
 
+   /**
+    * boton de seleccion de inicializacion mediante
+    * k-medias|| (centros alejados entre si)
+    */
+   private JRadioButton kmediasParalelo = null;
+
+   /**
+    * boton de seleccion de inicializacion mediante
+    * corte de la mediana
+    */
+   private JRadioButton corteMediana = null;
+
+   /**
+    * boton de seleccion de inicializacion mediante
+    * arbol octal
+    */
+   private JRadioButton arbolOctal = null;
+
+   /**
+    * casilla para refinar con iteraciones de k-medias los
+    * centros iniciales; sin marcar se filtra directamente
+    * con ellos
+    */
+   private JCheckBox refinar = null;
+
    /**
     * boton de seleccion del criterio de parada por
     * numero de iteraciones
@@ -73,6 +104,18 @@ public class AplicacionFiltrado extends JFrame {
     */
    private JRadioButton ruido = null;
 
+   /**
+    * boton de seleccion del criterio de parada por
+    * cambios de grupo
+    */
+   private JRadioButton cambios = null;
+
+   /**
+    * boton de seleccion del criterio de parada por
+    * tiempo de ejecucion
+    */
+   private JRadioButton paradaTiempo = null;
+
    /**
     * campo para indicar el numero de colores a seleccionar
     */
@@ -93,6 +136,21 @@ public class AplicacionFiltrado extends JFrame {
     */
    private JSpinner umbralRuido = null;
 
+   /**
+    * campo para indicar el umbral de cambios de grupo
+    */
+   private JSpinner umbralCambios = null;
+
+   /**
+    * campo para indicar el tiempo maximo de ejecucion
+    */
+   private JSpinner tiempoMaximo = null;
+
+   /**
+    * traza de las iteraciones del ultimo filtrado
+    */
+   private transient TrazaIteraciones traza = null;
+
    /**
     * campo de texto para mostrar informacion sobre la aplicacion
     * del ruido
@@ -209,11 +267,17 @@ public class AplicacionFiltrado extends JFrame {
       // | muestreo aletaorio |                  |
       // | muestreo uniforme  |                  |
       // | muestreo estratificado |              |
+      // | k-medias||         |                  |
+      // | corte de la mediana |                 |
+      // | arbol octal        |                  |
+      // | refinar con k-medias |                |
       // |                 separador             |
       // |           criterio de parada          |
       // | iteraciones       | spinner           |
       // | estabildad        | spinner           |
       // | relacion ruido    | spinner           |
+      // | cambios de grupo  | spinner           |
+      // | tiempo maximo     | spinner           |
       // |                 separador             |
       // | boton aplicar     | boton recargar    |
       //
@@ -227,21 +291,22 @@ public class AplicacionFiltrado extends JFrame {
       crearSeparador(panelControles, 1, 0, 2);
 
       // se crea el panel para la seleccion de forma de inicializacion
-      // (a partir de la fila 2)
-      crearPanelInicializacion(panelControles, 2);
+      // (a partir de la fila 2). Cada panel ocupa una fila por
+      // modo y devuelve la primera fila libre
+      int fila = crearPanelInicializacion(panelControles, 2);
 
       // se crea un separador
-      crearSeparador(panelControles, 6, 0, 2);
+      crearSeparador(panelControles, fila, 0, 2);
 
       // se crea el panal para seleccion del modo de convergencia
-      // los elementos ocupan a partir de la fila 7
-      crearPanelConvergencia(panelControles, 7);
+      // los elementos ocupan a partir de la fila siguiente
+      fila = crearPanelConvergencia(panelControles, fila + 1);
 
       // se crea un separador
-      crearSeparador(panelControles, 11, 0, 2);
+      crearSeparador(panelControles, fila, 0, 2);
 
       // se crean los botones de accion
-      crearPanelAccion(panelControles, 12);
+      crearPanelAccion(panelControles, fila + 1);
 
       // se devuelve el panel
       return panelControles;
@@ -286,8 +351,9 @@ public class AplicacionFiltrado extends JFrame {
     *
     * @param panel      panel donde se agregan los controles
     * @param filaInicio fila inicial
+    * @return primera fila libre tras el panel
     */
-   private void crearPanelInicializacion(JPanel panel, int filaInicio) {
+   private int crearPanelInicializacion(JPanel panel, int filaInicio) {
       // se crea borde para el panel
       JLabel etiqueta = new JLabel("Modo de seleccion de colores");
 
@@ -323,13 +389,25 @@ public class AplicacionFiltrado extends JFrame {
                boton = new JRadioButton("Muestreo estratificado");
                muestreoEstratificado = boton;
                break;
+            case KMEDIAS_PARALELO:
+               boton = new JRadioButton("K-medias||");
+               kmediasParalelo = boton;
+               break;
+            case CORTE_MEDIANA:
+               boton = new JRadioButton("Corte de la mediana");
+               corteMediana = boton;
+               break;
+            case ARBOL_OCTAL:
+               boton = new JRadioButton("Arbol octal");
+               arbolOctal = boton;
+               break;
          }
 
          // se agrega al grupo
          botones.add(boton);
 
-         // se agrega al panel: en las filas 3, 4 y 5 y
-         // columna 0
+         // se agrega al panel: una fila por modo a partir
+         // de la siguiente a la etiqueta, en la columna 0
          GridBagConstraints bc = new GridBagConstraints();
          bc.fill = GridBagConstraints.HORIZONTAL;
          bc.gridx = 0;
@@ -340,6 +418,20 @@ public class AplicacionFiltrado extends JFrame {
          // se incrementa el contador de fila
          fila = fila + 1;
       }
+
+      // se agrega la casilla de refinado
+      refinar = new JCheckBox("Refinar con k-medias");
+      refinar.setSelected(true);
+      GridBagConstraints rc = new GridBagConstraints();
+      rc.fill = GridBagConstraints.HORIZONTAL;
+      rc.gridx = 0;
+      rc.gridy = fila;
+      rc.gridwidth = 2;
+      rc.insets = new Insets(10, 15, 0, 0);
+      panel.add(refinar, rc);
+
+      // se devuelve la primera fila libre
+      return fila + 1;
    }
 
    /**
@@ -347,13 +439,14 @@ public class AplicacionFiltrado extends JFrame {
     *
     * @param panel      panel donde se agregan los controles
     * @param filaInicio fila inicial
+    * @return primera fila libre tras el panel
     */
-   private void crearPanelConvergencia(JPanel panel, int filaInicio) {
+   private int crearPanelConvergencia(JPanel panel, int filaInicio) {
 
       // se crea la etiqueta
       JLabel etiqueta = new JLabel("Criterio de convergencia");
 
-      // se agrega la etiqueta al panel: fila 7, columna 0,
+      // se agrega la etiqueta al panel: fila inicial, columna 0,
       // ocupando dos columnas
       GridBagConstraints c = new GridBagConstraints();
       c.fill = GridBagConstraints.VERTICAL;
@@ -396,6 +489,20 @@ public class AplicacionFiltrado extends JFrame {
                selector = new JSpinner(new SpinnerNumberModel(50, 1, 100, 1));
                umbralRuido = selector;
                break;
+            case CAMBIOS:
+               boton = new JRadioButton("Cambios (%)");
+               cambios = boton;
+               selector = new JSpinner(new SpinnerNumberModel(1.0,
+                  0.0, 100.0, 0.5));
+               umbralCambios = selector;
+               break;
+            case TIEMPO:
+               boton = new JRadioButton("Tiempo (ms)");
+               paradaTiempo = boton;
+               selector = new JSpinner(new SpinnerNumberModel(1000, 10,
+                  600000, 100));
+               tiempoMaximo = selector;
+               break;
          }
 
          // se agrega el boton al grupo
@@ -421,6 +528,9 @@ public class AplicacionFiltrado extends JFrame {
          // se incrementa el contador de fila
          fila++;
       }
+
+      // se devuelve la primera fila libre
+      return fila;
    }
 
    /**
@@ -520,6 +630,23 @@ public class AplicacionFiltrado extends JFrame {
       // se agrega la opcion al menu
       menuArchivo.add(salvar);
 
+      // se crea la opcion de exportar la traza del ultimo filtrado
+      JMenuItem exportar = new JMenuItem("Exportar traza....");
+
+      // se agrega la opcion asociada
+      exportar.addActionListener(new ActionListener() {
+         @Override
+         public void actionPerformed(ActionEvent e) {
+            JFileChooser selector = new JFileChooser("./data");
+            if (selector.showSaveDialog(AplicacionFiltrado.this) == JFileChooser.APPROVE_OPTION) {
+               exportarTraza(selector.getSelectedFile().getPath());
+            }
+         }
+      });
+
+      // se agrega la opcion al menu
+      menuArchivo.add(exportar);
+
       // se crea la opcion de salir
       JMenuItem salir = new JMenuItem(("Salir...."));
 
@@ -578,12 +705,27 @@ public class AplicacionFiltrado extends JFrame {
          case ESTABILIDAD:
             umbral = obtenerUmbralEstabilidad();
             break;
+         case CAMBIOS:
+            umbral = obtenerUmbralCambios();
+            break;
+         case TIEMPO:
+            umbral = obtenerTiempoMaximo();
+            break;
       }
 
+      // si no se refina, se filtra con los centros iniciales
+      OpcionesKMedias opciones = new OpcionesKMedias();
+      if (!refinar.isSelected()) {
+         opciones.asignarModoIteracion(ModoIteracion.NINGUNA);
+      }
+
+      // se anota la traza de las iteraciones para poder exportarla
+      opciones.asignarCapacidadTraza(1024);
+
       // se llama al metodo factoria para crear los objetos necesarios
       KMedias kmedias = KMedias.factoria(obtenerContadorColores(), obtenerModoInicializacion(),
          obtenerModoConvergencia(), obtenerMaximoIteraciones(), umbral,
-         canvas.obtenerImagen());
+         canvas.obtenerImagen(), opciones);
 
       // se informa sobre los criterios usados
       informarTexto(obtenerModoInicializacion(), obtenerModoConvergencia());
@@ -592,6 +734,7 @@ public class AplicacionFiltrado extends JFrame {
       Imagen filtrada = kmedias.agrupar();
       canvas.asignarImagen(filtrada);
       tiempo = System.currentTimeMillis() - tiempo;
+      traza = kmedias.obtenerTraza();
 
       // se muestra informacion por la ventana de texto
       // se obtiene el numero de iteraciones usadas del
@@ -616,6 +759,18 @@ public class AplicacionFiltrado extends JFrame {
          } else {
             if (seleccionUniforme.isSelected()) {
                modo = ModoInicializacion.SELECCION_UNIFORME;
+            } else {
+               if (kmediasParalelo.isSelected()) {
+                  modo = ModoInicializacion.KMEDIAS_PARALELO;
+               } else {
+                  if (corteMediana.isSelected()) {
+                     modo = ModoInicializacion.CORTE_MEDIANA;
+                  } else {
+                     if (arbolOctal.isSelected()) {
+                        modo = ModoInicializacion.ARBOL_OCTAL;
+                     }
+                  }
+               }
             }
          }
       }
@@ -639,6 +794,14 @@ public class AplicacionFiltrado extends JFrame {
          } else {
             if (ruido.isSelected()) {
                modo = ModoConvergencia.RUIDO;
+            } else {
+               if (cambios.isSelected()) {
+                  modo = ModoConvergencia.CAMBIOS;
+               } else {
+                  if (paradaTiempo.isSelected()) {
+                     modo = ModoConvergencia.TIEMPO;
+                  }
+               }
             }
          }
       }
@@ -682,6 +845,24 @@ public class AplicacionFiltrado extends JFrame {
       return Double.parseDouble(umbralRuido.getValue().toString());
    }
 
+   /**
+    * metodo de acceso al umbral de cambios de grupo
+    *
+    * @return fraccion de pixels para parada por cambios
+    */
+   private double obtenerUmbralCambios() {
+      return Double.parseDouble(umbralCambios.getValue().toString()) / 100.0;
+   }
+
+   /**
+    * metodo de acceso al tiempo maximo de ejecucion
+    *
+    * @return tiempo maximo en milisegundos
+    */
+   private double obtenerTiempoMaximo() {
+      return Double.parseDouble(tiempoMaximo.getValue().toString());
+   }
+
    /**
     * metodo de recarga de la imagen abierta mediante el menu o
     * cargada inicialmente
@@ -716,7 +897,31 @@ public class AplicacionFiltrado extends JFrame {
     * @param nombre nombre del archivo a salvar
     */
    private void salvarArchivo(String nombre) {
-      Utilidades.salvarImagen(canvas.obtenerImagen(), nombre);
+      Utilidades.salvarImagenRaster(canvas.obtenerImagen(), nombre);
+   }
+
+   /**
+    * metodo para exportar la traza de las iteraciones del ultimo
+    * filtrado: en formato JSON si el nombre acaba en .json y en
+    * formato CSV en otro caso
+    *
+    * @param nombre nombre del archivo a generar
+    */
+   private void exportarTraza(String nombre) {
+      if (traza == null) {
+         info.append("no hay traza de iteraciones\n");
+         return;
+      }
+      try (Writer salida = new FileWriter(nombre)) {
+         if (nombre.toLowerCase().endsWith(".json")) {
+            traza.escribirJSON(salida);
+         } else {
+            traza.escribirCSV(salida);
+         }
+         info.append("traza exportada: " + nombre + "\n");
+      } catch (IOException e) {
+         info.append("error al exportar la traza: " + e.getMessage() + "\n");
+      }
    }
 
    /**
@@ -791,6 +996,12 @@ public class AplicacionFiltrado extends JFrame {
          case RUIDO:
             info.append("ruido: " + obtenerUmbralRuido() + "\n");
             break;
+         case CAMBIOS:
+            info.append("cambios: " + obtenerUmbralCambios() + "\n");
+            break;
+         case TIEMPO:
+            info.append("tiempo maximo (ms): " + obtenerTiempoMaximo() + "\n");
+            break;
       }
    }
 
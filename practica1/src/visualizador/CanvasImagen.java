@@ -146,23 +146,9 @@ public class CanvasImagen extends JComponent {
    public void paintComponent(Graphics graphics) {
       super.paintComponent(graphics);
 
-      // se obtiene el numero de columnas
-      int columnas = imagen.obtenerColumnas();
-
-      // se obtiene el numero de filas
-      int filas = imagen.obtenerFilas();
-
-      // se crea buffer
-      BufferedImage buffer = new BufferedImage(columnas, filas,
-         BufferedImage.TYPE_INT_ARGB);
-
-      // se cargan los datos en el buffer
-      for (int i = 0; i < columnas; i++) {
-         for (int j = 0; j < filas; j++) {
-            int color = imagen.obtenerColorPixel(i, j);
-            buffer.setRGB(i, j, color);
-         }
-      }
+      // se crea un buffer que usa directamente el array de
+      // colores de la imagen, sin copiarlo
+      BufferedImage buffer = Utilidades.convertirImagenBuffer(imagen);
 
       // se ordena el pintado
       graphics.drawImage(buffer, 0, 0, null);